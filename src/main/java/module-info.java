@@ -1,9 +1,12 @@
 module nl.tabuu.mclapi {
     requires transitive com.google.gson;
+    requires transitive java.net.http;
 
     exports nl.tabuu.mclapi.launcher;
 
     exports nl.tabuu.mclapi.mojang;
+    exports nl.tabuu.mclapi.mojang.download;
+    exports nl.tabuu.mclapi.mojang.json;
     exports nl.tabuu.mclapi.mojang.rule;
 
     exports nl.tabuu.mclapi.profile;
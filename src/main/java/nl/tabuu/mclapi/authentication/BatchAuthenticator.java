@@ -0,0 +1,132 @@
+package nl.tabuu.mclapi.authentication;
+
+import nl.tabuu.mclapi.authentication.microsoft.MSAuthenticationRequest;
+import nl.tabuu.mclapi.authentication.microsoft.MSAuthenticator;
+import nl.tabuu.mclapi.authentication.yggdrasil.YDAuthenticationRequest;
+import nl.tabuu.mclapi.authentication.yggdrasil.YDAuthenticator;
+import nl.tabuu.mclapi.util.JsonHttpClient;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Authenticates many accounts at once, with a limited amount of authentications in flight.
+ * Requests to the authentication servers are rate limited per host by {@link JsonHttpClient#setRateLimit(String, double, int)},
+ * and throttled requests are retried after the time the server asks for.
+ */
+public class BatchAuthenticator {
+
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private final MSAuthenticator _microsoft;
+    private final YDAuthenticator _yggdrasil;
+    private final int _concurrency;
+
+    /**
+     * Creates a batch authenticator.
+     *
+     * @param microsoft   The authenticator for {@link MSAuthenticationRequest}s.
+     * @param yggdrasil   The authenticator for {@link YDAuthenticationRequest}s.
+     * @param concurrency The maximum amount of authentications in flight.
+     */
+    public BatchAuthenticator(MSAuthenticator microsoft, YDAuthenticator yggdrasil, int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("The concurrency must be positive");
+
+        _microsoft = Objects.requireNonNull(microsoft);
+        _yggdrasil = Objects.requireNonNull(yggdrasil);
+        _concurrency = concurrency;
+    }
+
+    public BatchAuthenticator(int concurrency) {
+        this(IAuthenticator.microsoft(), IAuthenticator.yggdrasil(), concurrency);
+    }
+
+    public BatchAuthenticator() {
+        this(DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Returns the maximum amount of authentications in flight.
+     *
+     * @return The maximum amount of authentications in flight.
+     */
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    /**
+     * Authenticates all requests, calling the callback for every request as soon as its authentication completes.
+     * Requests of an unsupported type are answered with {@link AuthenticationResponse.State#NO_AUTHENTICATION}.
+     *
+     * @param requests The requests to authenticate.
+     * @param callback The callback to call with every request and its response.
+     * @param <R>      The type of the requests.
+     * @return A future that completes once all requests have been answered.
+     */
+    public <R extends IAuthenticationRequest> CompletableFuture<Void> authenticateAll(Collection<? extends R> requests, BiConsumer<R, AuthenticationResponse> callback) {
+        Iterator<? extends R> iterator = new ArrayList<R>(requests).iterator();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(_concurrency, requests.size())];
+
+        // Every worker takes the next request once its previous authentication completed.
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = next(iterator, callback);
+
+        return CompletableFuture.allOf(workers);
+    }
+
+    /**
+     * Authenticates all requests, and returns the responses in the order they complete.
+     * The stream blocks until the next response is available.
+     *
+     * @param requests The requests to authenticate.
+     * @return A stream of the responses, in the order they complete.
+     */
+    public Stream<AuthenticationResponse> authenticateAll(Collection<? extends IAuthenticationRequest> requests) {
+        BlockingQueue<AuthenticationResponse> responses = new LinkedBlockingQueue<>();
+        authenticateAll(requests, (request, response) -> responses.add(response));
+
+        return Stream.generate(() -> {
+            try {
+                return responses.take();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(exception);
+            }
+        }).limit(requests.size());
+    }
+
+    private <R extends IAuthenticationRequest> CompletableFuture<Void> next(Iterator<? extends R> iterator, BiConsumer<R, AuthenticationResponse> callback) {
+        R request;
+        synchronized (iterator) {
+            if (!iterator.hasNext()) return CompletableFuture.completedFuture(null);
+            request = iterator.next();
+        }
+
+        return authenticate(request)
+                .exceptionally(throwable -> new AuthenticationResponse(AuthenticationResponse.State.NO_AUTHENTICATION))
+                // Cached sessions complete immediately, continuing asynchronously keeps the stack from growing per request.
+                .thenComposeAsync(response -> {
+                    try {
+                        callback.accept(request, response);
+                    } catch (RuntimeException exception) {
+                        exception.printStackTrace();
+                    }
+
+                    return next(iterator, callback);
+                });
+    }
+
+    private CompletableFuture<AuthenticationResponse> authenticate(IAuthenticationRequest request) {
+        if (request instanceof MSAuthenticationRequest)
+            return _microsoft.authenticate((MSAuthenticationRequest) request);
+
+        if (request instanceof YDAuthenticationRequest)
+            return _yggdrasil.authenticate((YDAuthenticationRequest) request);
+
+        return CompletableFuture.failedFuture(new IllegalArgumentException(String.format("Unsupported request %s", request)));
+    }
+}
@@ -50,4 +50,14 @@ public interface IAuthenticator<R extends IAuthenticationRequest> {
     static CompletableFuture<AuthenticationResponse> microsoft(String authenticationCode) {
         return microsoft().authenticate(new MSAuthenticationRequest(authenticationCode));
     }
+
+    /**
+     * A shortcut for authenticating an account of which the tokens are kept in the default {@link nl.tabuu.mclapi.authentication.microsoft.MSTokenStore}.
+     * @param account The name the tokens of the account are stored under.
+     * @param authenticationCode The authorisation code for the {@link MSAuthenticationRequest}, or null if the account has stored tokens.
+     * @return The {@link AuthenticationResponse} for the request.
+     */
+    static CompletableFuture<AuthenticationResponse> microsoft(String account, String authenticationCode) {
+        return microsoft().authenticate(new MSAuthenticationRequest(account, authenticationCode));
+    }
 }
\ No newline at end of file
@@ -3,7 +3,9 @@ package nl.tabuu.mclapi.authentication;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import nl.tabuu.mclapi.profile.IMinecraftProfile;
-import nl.tabuu.mclapi.util.HttpRequest;
+import nl.tabuu.mclapi.profile.MinecraftProfile;
+import nl.tabuu.mclapi.profile.ProfileCache;
+import nl.tabuu.mclapi.util.IHttpClient;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -16,15 +18,26 @@ public class Session {
             MINECRAFT_PROFILE_URL = "https://api.minecraftservices.com/minecraft/profile";
 
     private final String _sessionId;
-    private IMinecraftProfile _profile;
+    private final IHttpClient _client;
 
     /**
      * Creates a session based on the provided session id.
      *
      * @param sessionId The session id to base this session on.
+     * @param client    The client to send the requests of this session with.
      */
-    public Session(String sessionId) {
+    public Session(String sessionId, IHttpClient client) {
         _sessionId = sessionId;
+        _client = Objects.requireNonNull(client);
+    }
+
+    /**
+     * Creates a session based on the provided session id.
+     *
+     * @param sessionId The session id to base this session on.
+     */
+    public Session(String sessionId) {
+        this(sessionId, IHttpClient.getDefault());
     }
 
 
@@ -47,8 +60,8 @@ public class Session {
         requestBody.addProperty("accessToken", getId());
         // requestBody.addProperty("clientToken", MCLauncher.getLauncherId().toString()); TODO: fix 403
 
-        return HttpRequest.doPostRequest(
-                String.format(MOJANG_AUTH_SERVER_URL, MOJANG_AUTH_SERVER_VALIDATE_ENPOINT),
+        return _client.send(
+                String.format(MOJANG_AUTH_SERVER_URL, MOJANG_AUTH_SERVER_VALIDATE_ENPOINT), "POST",
                 Map.of("Content-Type", "application/json"),
                 requestBody
         ).exceptionally(t -> { t.printStackTrace(); return 0;})
@@ -65,8 +78,8 @@ public class Session {
         requestBody.addProperty("accessToken", getId());
         // requestBody.addProperty("clientToken", MCLauncher.getLauncherId().toString()); TODO: fix 403
 
-        return HttpRequest.doPostRequest(
-                String.format(MOJANG_AUTH_SERVER_URL, MOJANG_AUTH_SERVER_INVALIDATE_ENPOINT),
+        return _client.send(
+                String.format(MOJANG_AUTH_SERVER_URL, MOJANG_AUTH_SERVER_INVALIDATE_ENPOINT), "POST",
                 Map.of("Content-Type", "application/json"),
                 requestBody
         ).exceptionally(t -> 0)
@@ -74,29 +87,26 @@ public class Session {
     }
 
     /**
-     * Makes a request to the Mojang servers to fetch the profile, and caches this.
+     * Returns the profile of this session. Profiles are cached by {@link ProfileCache#getDefault()},
+     * so concurrent calls, and sessions with the same id, share a single request to the Mojang servers.
      *
-     * @return The cached profile for this session.
+     * @return The profile of this session.
      */
     public CompletableFuture<IMinecraftProfile> getProfile() {
-        if(Objects.isNull(_profile)) {
-            CompletableFuture<IMinecraftProfile> future = HttpRequest.doJsonBodyRequest(
-                    MINECRAFT_PROFILE_URL,
-                    "GET",
-                    Map.of(
-                            "Authorization", String.format("Bearer %s", getId())),
-                    null)
-                    .thenApply(this::getProfileFromJson);
-
-            future.thenApply(profile -> _profile = profile);
-
-            return future;
-        }
+        return ProfileCache.getDefault().get(getId(), this::requestProfile);
+    }
 
-        return CompletableFuture.completedFuture(_profile);
+    private CompletableFuture<IMinecraftProfile> requestProfile(String sessionId) {
+        return _client.sendJson(
+                MINECRAFT_PROFILE_URL,
+                "GET",
+                Map.of(
+                        "Authorization", String.format("Bearer %s", sessionId)),
+                null)
+                .thenApply(Session::getProfileFromJson);
     }
 
-    private IMinecraftProfile getProfileFromJson(JsonObject object) {
+    private static IMinecraftProfile getProfileFromJson(JsonObject object) {
         List<JsonElement> skins = new ArrayList<>();
         object.getAsJsonArray("skins").iterator().forEachRemaining(skins::add);
 
@@ -112,21 +122,6 @@ public class Session {
                 .map(json -> json.get("url").getAsString())
                 .orElse(null);
 
-        return new IMinecraftProfile() {
-            @Override
-            public UUID getUserId() {
-                return userId;
-            }
-
-            @Override
-            public String getSkinUrl() {
-                return skinUrl;
-            }
-
-            @Override
-            public String getUserName() {
-                return name;
-            }
-        };
+        return new MinecraftProfile(userId, name, skinUrl);
     }
-}
\ No newline at end of file
+}
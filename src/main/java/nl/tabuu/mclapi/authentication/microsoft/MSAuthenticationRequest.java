@@ -2,12 +2,28 @@ package nl.tabuu.mclapi.authentication.microsoft;
 
 import nl.tabuu.mclapi.authentication.IAuthenticationRequest;
 
+import java.util.Optional;
+
 /**
  * Represents an authentication request based on a Microsoft authorization token.
  */
 public class MSAuthenticationRequest implements IAuthenticationRequest {
 
-    private final String _authorisationToken;
+    private final String _account, _authorisationToken;
+
+    /**
+     * Creates an authentication request for an account of which the tokens are kept in the {@link MSTokenStore}.
+     * Authentication resumes from the deepest stage of which the stored token is still valid, and only needs
+     * the authorisation token if the account has no valid refresh token.
+     *
+     * @param account             The name the tokens of the account are stored under, or null to not store them.
+     * @param authenticationToken The authorisation token that should be retrieved from the browser, or null if the account has stored tokens.
+     *                            Example URL: https://login.live.com/oauth20_authorize.srf?client_id=<client_id>&response_type=code&redirect_uri=https%3A%2F%2Flogin.live.com%2Foauth20_desktop.srf&scope=XboxLive.signin%20offline_access
+     */
+    public MSAuthenticationRequest(String account, String authenticationToken) {
+        _account = account;
+        _authorisationToken = authenticationToken;
+    }
 
     /**
      * Creates an authentication request based on a Microsoft authorization token.
@@ -16,7 +32,15 @@ public class MSAuthenticationRequest implements IAuthenticationRequest {
      *                            Example URL: https://login.live.com/oauth20_authorize.srf?client_id=<client_id>&response_type=code&redirect_uri=https%3A%2F%2Flogin.live.com%2Foauth20_desktop.srf&scope=XboxLive.signin%20offline_access
      */
     public MSAuthenticationRequest(String authenticationToken) {
-        _authorisationToken = authenticationToken;
+        this(null, authenticationToken);
+    }
+
+    /**
+     * Returns an optional containing the name the tokens of the account are stored under, if they are stored.
+     * @return An optional containing the name the tokens of the account are stored under, if they are stored.
+     */
+    public Optional<String> getAccount() {
+        return Optional.ofNullable(_account);
     }
 
     /**
@@ -26,4 +50,4 @@ public class MSAuthenticationRequest implements IAuthenticationRequest {
     public String getAuthorisationToken() {
         return _authorisationToken;
     }
-}
\ No newline at end of file
+}
@@ -5,11 +5,21 @@ import com.google.gson.JsonObject;
 import nl.tabuu.mclapi.authentication.AuthenticationResponse;
 import nl.tabuu.mclapi.authentication.IAuthenticator;
 import nl.tabuu.mclapi.authentication.Session;
-import nl.tabuu.mclapi.util.HttpRequest;
+import nl.tabuu.mclapi.util.IHttpClient;
+import nl.tabuu.mclapi.util.JsonHttpClient;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Represents a Minecraft Microsoft authenticator.
@@ -22,61 +32,200 @@ public class MSAuthenticator implements IAuthenticator<MSAuthenticationRequest>
             XSTS_AUTH_URL = "https://xsts.auth.xboxlive.com/xsts/authorize",
             MC_LOGIN_URL = "https://api.minecraftservices.com/authentication/login_with_xbox";
 
+    private static final Duration REFRESH_TOKEN_LIFETIME = Duration.ofDays(90);
+
+    private final MSTokenStore _store;
+    private final IHttpClient _client;
+    private final Map<List<String>, CompletableFuture<AuthenticationResponse>> _pending;
+
+    /**
+     * Creates an authenticator that keeps the tokens of accounts in the provided store.
+     *
+     * @param store  The store to keep the tokens of accounts in.
+     * @param client The client to send the requests with.
+     */
+    public MSAuthenticator(MSTokenStore store, IHttpClient client) {
+        _store = Objects.requireNonNull(store);
+        _client = Objects.requireNonNull(client);
+        _pending = new ConcurrentHashMap<>();
+    }
+
+    public MSAuthenticator(MSTokenStore store) {
+        this(store, IHttpClient.getDefault());
+    }
+
+    public MSAuthenticator() {
+        this(MSTokenStore.getDefault());
+    }
+
+    /**
+     * Authenticates the user. If the request names an account, authentication resumes from the deepest stage of which
+     * the stored token is still valid, and the Microsoft access token is obtained with the refresh token if possible.
+     * A stored Minecraft token is validated before it is used, and obtained again if it was revoked.
+     * Concurrent requests for the same account and authorisation code share the same authentication.
+     *
+     * @param request The request of authentication.
+     * @return The response to the authentication.
+     */
     @Override
     public CompletableFuture<AuthenticationResponse> authenticate(MSAuthenticationRequest request) {
-        return getMicrosoftAccessToken(request.getAuthorisationToken())
-                .thenCompose(this::getXBLToken)
-                .thenCompose(this::getXSTSToken)
-                .thenCompose(this::getMinecraftSessionId)
-                .exceptionally(throwable -> "")
-                .thenApply(id -> id.isEmpty() ? null : new Session(id))
-                .thenCompose(s -> {
-                    if (Objects.isNull(s))
-                        return CompletableFuture.completedFuture(new AuthenticationResponse(AuthenticationResponse.State.NO_AUTHENTICATION));
-
-                    return s.isValid().thenApply(valid -> {
-                        if (!valid)
-                            return new AuthenticationResponse(AuthenticationResponse.State.NO_SESSION);
-                        return new AuthenticationResponse(AuthenticationResponse.State.SUCCESS, s);
-                    });
-                });
+        Optional<String> account = request.getAccount();
+        if (account.isEmpty())
+            return authenticate(new MSTokenStore(), "", request.getAuthorisationToken());
+
+        // Sharing the authentication makes sure a refresh token is only redeemed once. The authorisation code is part of
+        // the key, so a request with a new code is not answered with the outcome of a request with an older one.
+        List<String> key = Arrays.asList(account.get(), request.getAuthorisationToken());
+        CompletableFuture<AuthenticationResponse> created = new CompletableFuture<>();
+        CompletableFuture<AuthenticationResponse> pending = _pending.putIfAbsent(key, created);
+        if (Objects.nonNull(pending)) return pending;
+
+        authenticate(_store, account.get(), request.getAuthorisationToken()).whenComplete((response, throwable) -> {
+            _pending.remove(key, created);
+
+            if (Objects.isNull(throwable)) created.complete(response);
+            else created.completeExceptionally(throwable);
+        });
+
+        return created;
+    }
+
+    private CompletableFuture<AuthenticationResponse> authenticate(MSTokenStore store, String account, String authCode) {
+        Optional<MSToken> stored = store.getValidToken(account, MSTokenStage.MINECRAFT);
+        CompletableFuture<MSToken> token;
+
+        if (stored.isPresent()) {
+            // A stored token can be revoked before it expires, so it is validated before it is used.
+            token = new Session(stored.get().getValue(), _client).isValid()
+                    .thenCompose(valid -> valid ? CompletableFuture.completedFuture(stored.get()) : restart(store, account, authCode));
+        } else {
+            // A token fetched by this call was just returned by the login, validating it would only cost another round trip.
+            boolean resumed = Stream.of(MSTokenStage.MICROSOFT, MSTokenStage.XBL, MSTokenStage.XSTS)
+                    .anyMatch(stage -> store.getValidToken(account, stage).isPresent());
+
+            token = getToken(store, account, authCode, MSTokenStage.MINECRAFT)
+                    .handle((result, throwable) -> {
+                        if (Objects.isNull(throwable)) return CompletableFuture.completedFuture(result);
+                        return resumed ? restart(store, account, authCode) : CompletableFuture.<MSToken>failedFuture(throwable);
+                    })
+                    .thenCompose(Function.identity());
+        }
+
+        return token
+                .thenApply(result -> new AuthenticationResponse(AuthenticationResponse.State.SUCCESS, new Session(result.getValue(), _client)))
+                .exceptionally(throwable -> new AuthenticationResponse(AuthenticationResponse.State.NO_AUTHENTICATION));
+    }
+
+    /**
+     * Removes the stored tokens of the account and obtains the Minecraft token again, starting from the refresh token or authorisation code.
+     */
+    private CompletableFuture<MSToken> restart(MSTokenStore store, String account, String authCode) {
+        store.removeTokens(account, MSTokenStage.MICROSOFT, MSTokenStage.XBL, MSTokenStage.XSTS, MSTokenStage.MINECRAFT);
+        return getToken(store, account, authCode, MSTokenStage.MINECRAFT);
     }
 
     /**
-     * Returns the Microsoft access token.
+     * Returns the token of the stage, either from the store or by obtaining it from the token of the previous stage.
+     */
+    private CompletableFuture<MSToken> getToken(MSTokenStore store, String account, String authCode, MSTokenStage stage) {
+        Optional<MSToken> stored = store.getValidToken(account, stage);
+        if (stored.isPresent()) return CompletableFuture.completedFuture(stored.get());
+
+        CompletableFuture<MSToken> token;
+        switch (stage) {
+            case MICROSOFT:
+                token = getMicrosoftAccessToken(store, account, authCode);
+                break;
+            case XBL:
+                token = getToken(store, account, authCode, MSTokenStage.MICROSOFT).thenCompose(this::getXBLToken);
+                break;
+            case XSTS:
+                token = getToken(store, account, authCode, MSTokenStage.XBL).thenCompose(this::getXSTSToken);
+                break;
+            case MINECRAFT:
+                token = getToken(store, account, authCode, MSTokenStage.XSTS).thenCompose(this::getMinecraftAccessToken);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("The %s token can not be requested", stage));
+        }
+
+        return token.thenApply(result -> {
+            store.putToken(account, stage, result);
+            return result;
+        });
+    }
+
+    /**
+     * Returns the Microsoft access token, obtained with the stored refresh token if there is one, otherwise with the authorisation code.
+     * The refresh token in the response is stored for the next authentication.
+     */
+    private CompletableFuture<MSToken> getMicrosoftAccessToken(MSTokenStore store, String account, String authCode) {
+        Optional<MSToken> refreshToken = store.getValidToken(account, MSTokenStage.REFRESH);
+        CompletableFuture<JsonObject> response;
+
+        if (refreshToken.isPresent()) {
+            response = getMicrosoftAccessToken("refresh_token", "refresh_token", refreshToken.get().getValue());
+
+            if (Objects.nonNull(authCode)) {
+                response = response
+                        .handle((json, throwable) -> Objects.isNull(throwable)
+                                ? CompletableFuture.completedFuture(json)
+                                : getMicrosoftAccessToken("authorization_code", "code", authCode))
+                        .thenCompose(Function.identity());
+            }
+        } else if (Objects.nonNull(authCode)) {
+            response = getMicrosoftAccessToken("authorization_code", "code", authCode);
+        } else {
+            return CompletableFuture.failedFuture(new IllegalStateException(String.format("No refresh token or authorisation code for %s", account)));
+        }
+
+        return response.thenApply(json -> {
+            if (json.has("refresh_token")) {
+                MSToken refresh = new MSToken(json.get("refresh_token").getAsString(), null, Instant.now().plus(REFRESH_TOKEN_LIFETIME));
+                store.putToken(account, MSTokenStage.REFRESH, refresh);
+            }
+
+            return new MSToken(json.get("access_token").getAsString(), null, getExpiry(json));
+        });
+    }
+
+    /**
+     * Returns the response of the Microsoft token endpoint.
      *
-     * @param authCode The Authorization token that should be retrieved from the browser.
-     *                 Example URL: https://login.live.com/oauth20_authorize.srf?client_id=<client_id>&response_type=code&redirect_uri=https%3A%2F%2Flogin.live.com%2Foauth20_desktop.srf&scope=XboxLive.signin%20offline_access
-     * @return The Microsoft access token.
+     * @param grantType The grant type of the request, either "authorization_code" or "refresh_token".
+     * @param grantKey  The parameter the grant is sent as, either "code" or "refresh_token".
+     * @param grant     The authorization code or refresh token.
+     *                  Authorization codes can be retrieved from the browser.
+     *                  Example URL: https://login.live.com/oauth20_authorize.srf?client_id=<client_id>&response_type=code&redirect_uri=https%3A%2F%2Flogin.live.com%2Foauth20_desktop.srf&scope=XboxLive.signin%20offline_access
+     * @return The response of the Microsoft token endpoint.
      */
-    private CompletableFuture<String> getMicrosoftAccessToken(String authCode) {
+    private CompletableFuture<JsonObject> getMicrosoftAccessToken(String grantType, String grantKey, String grant) {
         Map<String, String> data = Map.of(
                 "client_id", "00000000402b5328", // key borrowed from MiniDigger TODO: Get own client_id
-                "code", authCode,
-                "grant_type", "authorization_code",
+                grantKey, grant,
+                "grant_type", grantType,
                 "redirect_uri", "https://login.live.com/oauth20_desktop.srf",
                 "scope", "service::user.auth.xboxlive.com::MBI_SSL"
         );
 
-        String url = HttpRequest.getParameterizedUri(AUTH_TOKEN_URL, data);
+        String url = JsonHttpClient.getParameterizedUri(AUTH_TOKEN_URL, data);
 
-        return HttpRequest.doJsonBodyRequest(url, "GET",
-                Map.of("Accept", "application/json"), null)
-                .thenApply(response -> response.get("access_token").getAsString());
+        return _client.sendJson(url, "GET",
+                Map.of("Accept", "application/json"), null);
     }
 
-    private CompletableFuture<TokenPair> getXBLToken(String accessToken) {
+    private CompletableFuture<MSToken> getXBLToken(MSToken accessToken) {
         JsonObject properties = new JsonObject();
         properties.addProperty("AuthMethod", "RPS");
         properties.addProperty("SiteName", "user.auth.xboxlive.com");
-        properties.addProperty("RpsTicket", String.format("t=%s", accessToken));
+        properties.addProperty("RpsTicket", String.format("t=%s", accessToken.getValue()));
 
         JsonObject json = new JsonObject();
         json.add("Properties", properties);
         json.addProperty("RelyingParty", "http://auth.xboxlive.com");
         json.addProperty("TokenType", "JWT");
 
-        return HttpRequest.doJsonBodyRequest(XBL_AUTH_URL, "POST", Map.of(
+        return _client.sendJson(XBL_AUTH_URL, "POST", Map.of(
                 "Content-Type", "application/json",
                 "Accept", "application/json",
                 "x-xbl-contract-version", "1"
@@ -90,13 +239,13 @@ public class MSAuthenticator implements IAuthenticator<MSAuthenticationRequest>
                     .get("uhs")
                     .getAsString();
 
-            return new TokenPair(token, userHash);
+            return new MSToken(token, userHash, getNotAfter(response));
         });
     }
 
-    private CompletableFuture<TokenPair> getXSTSToken(TokenPair xblToken) {
+    private CompletableFuture<MSToken> getXSTSToken(MSToken xblToken) {
         JsonArray tokens = new JsonArray();
-        tokens.add(xblToken.getToken());
+        tokens.add(xblToken.getValue());
 
         JsonObject properties = new JsonObject();
         properties.addProperty("SandboxId", "RETAIL");
@@ -107,7 +256,7 @@ public class MSAuthenticator implements IAuthenticator<MSAuthenticationRequest>
         json.addProperty("RelyingParty", "rp://api.minecraftservices.com/");
         json.addProperty("TokenType", "JWT");
 
-        return HttpRequest.doJsonBodyRequest(XSTS_AUTH_URL, "POST", Map.of(
+        return _client.sendJson(XSTS_AUTH_URL, "POST", Map.of(
                 "Content-Type", "application/json",
                 "Accept", "application/json",
                 "x-xbl-contract-version", "1"
@@ -121,42 +270,36 @@ public class MSAuthenticator implements IAuthenticator<MSAuthenticationRequest>
                     .get("uhs")
                     .getAsString();
 
-            return new TokenPair(token, userHash);
+            return new MSToken(token, userHash, getNotAfter(response));
         });
     }
 
-    private CompletableFuture<String> getMinecraftSessionId(TokenPair xstsToken) {
+    private CompletableFuture<MSToken> getMinecraftAccessToken(MSToken xstsToken) {
         JsonObject json = new JsonObject();
-        json.addProperty("identityToken", String.format("XBL3.0 x=%s;%s", xstsToken.getHash(), xstsToken.getToken()));
+        json.addProperty("identityToken", String.format("XBL3.0 x=%s;%s", xstsToken.getUserHash(), xstsToken.getValue()));
 
-        return HttpRequest.doJsonBodyRequest(MC_LOGIN_URL, "POST", Map.of(
+        return _client.sendJson(MC_LOGIN_URL, "POST", Map.of(
                 "Content-Type", "application/json",
                 "Accept", "application/json"
-        ), json).thenApply(response -> response.get("access_token").getAsString());
+        ), json).thenApply(response -> new MSToken(response.get("access_token").getAsString(), null, getExpiry(response)));
     }
 
-    private static class TokenPair {
-        private final String token, hash;
-
-        public TokenPair(String token, String hash) {
-            this.token = token;
-            this.hash = hash;
-        }
-
-        public String getToken() {
-            return token;
-        }
-
-        public String getHash() {
-            return hash;
-        }
+    /**
+     * Returns the expiry of a token response with an "expires_in" field in seconds, or now if the response has none.
+     */
+    private static Instant getExpiry(JsonObject response) {
+        if (!response.has("expires_in")) return Instant.now();
+        return Instant.now().plusSeconds(response.get("expires_in").getAsLong());
+    }
 
-        @Override
-        public String toString() {
-            return "TokenPair{" +
-                    "token='" + token + '\'' +
-                    ", hash='" + hash + '\'' +
-                    '}';
+    /**
+     * Returns the expiry of an Xbox Live token response, or now if the response has none.
+     */
+    private static Instant getNotAfter(JsonObject response) {
+        try {
+            return response.has("NotAfter") ? Instant.parse(response.get("NotAfter").getAsString()) : Instant.now();
+        } catch (DateTimeParseException exception) {
+            return Instant.now();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package nl.tabuu.mclapi.authentication.microsoft;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Represents a token obtained in one of the stages of the Microsoft authentication chain.
+ */
+public class MSToken {
+
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(5);
+
+    private final String _value, _userHash;
+    private final Instant _expiry;
+
+    /**
+     * Creates a token.
+     *
+     * @param value    The value of the token.
+     * @param userHash The user hash that belongs to the token, or null if the stage has none.
+     * @param expiry   The moment the token expires.
+     */
+    public MSToken(String value, String userHash, Instant expiry) {
+        _value = Objects.requireNonNull(value);
+        _userHash = userHash;
+        _expiry = Objects.requireNonNull(expiry);
+    }
+
+    /**
+     * Returns the value of the token.
+     *
+     * @return The value of the token.
+     */
+    public String getValue() {
+        return _value;
+    }
+
+    /**
+     * Returns the user hash that belongs to the token, or null if the stage has none.
+     *
+     * @return The user hash that belongs to the token.
+     */
+    public String getUserHash() {
+        return _userHash;
+    }
+
+    /**
+     * Returns the moment the token expires.
+     *
+     * @return The moment the token expires.
+     */
+    public Instant getExpiry() {
+        return _expiry;
+    }
+
+    /**
+     * Returns true if the token is valid for at least five more minutes, otherwise false.
+     * The margin makes sure a token is not used for a request that arrives after it expired.
+     *
+     * @return True if the token is valid for at least five more minutes, otherwise false.
+     */
+    public boolean isValid() {
+        return Instant.now().plus(EXPIRY_MARGIN).isBefore(_expiry);
+    }
+
+    @Override
+    public String toString() {
+        return "MSToken{" +
+                "userHash='" + _userHash + '\'' +
+                ", expiry=" + _expiry +
+                '}';
+    }
+}
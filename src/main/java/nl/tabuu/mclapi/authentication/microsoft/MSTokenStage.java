@@ -0,0 +1,31 @@
+package nl.tabuu.mclapi.authentication.microsoft;
+
+/**
+ * Represents a stage of the Microsoft authentication chain, in the order the tokens are obtained.
+ */
+public enum MSTokenStage {
+    /**
+     * The Microsoft refresh token, used to obtain a new Microsoft access token without authorization code.
+     */
+    REFRESH,
+
+    /**
+     * The Microsoft access token.
+     */
+    MICROSOFT,
+
+    /**
+     * The Xbox Live token, together with the user hash.
+     */
+    XBL,
+
+    /**
+     * The Xbox Live security token, together with the user hash.
+     */
+    XSTS,
+
+    /**
+     * The Minecraft access token, used as session id.
+     */
+    MINECRAFT;
+}
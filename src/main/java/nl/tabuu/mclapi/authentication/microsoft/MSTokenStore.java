@@ -0,0 +1,224 @@
+package nl.tabuu.mclapi.authentication.microsoft;
+
+import nl.tabuu.mclapi.util.FileUtil;
+import nl.tabuu.mclapi.util.os.OperatingSystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the tokens of every stage of the Microsoft authentication chain per account, so authentication can resume
+ * from the deepest stage of which the token is still valid. If a directory is provided, the tokens of each account are
+ * persisted in a properties file readable only by the owner.
+ */
+public class MSTokenStore {
+
+    private static final String
+            KEY_ACCOUNT = "account",
+            KEY_TOKEN = "%s.token",
+            KEY_USER_HASH = "%s.hash",
+            KEY_EXPIRY = "%s.expiry";
+
+    private static MSTokenStore DEFAULT;
+
+    private final File _directory;
+    private final Map<String, Map<MSTokenStage, MSToken>> _accounts;
+
+    /**
+     * Creates a token store that persists the tokens in the provided directory.
+     *
+     * @param directory The directory to persist the tokens in, or null to keep the tokens in memory only.
+     */
+    public MSTokenStore(File directory) {
+        _directory = directory;
+        _accounts = new ConcurrentHashMap<>();
+    }
+
+    public MSTokenStore() {
+        this(null);
+    }
+
+    /**
+     * Returns an optional containing the token of the stage for the account, if there is one. The token may be expired.
+     *
+     * @param account The account the token belongs to.
+     * @param stage   The stage the token was obtained in.
+     * @return An optional containing the token of the stage for the account, if there is one.
+     */
+    public Optional<MSToken> getToken(String account, MSTokenStage stage) {
+        return Optional.ofNullable(getTokens(account).get(stage));
+    }
+
+    /**
+     * Returns an optional containing the token of the stage for the account, if there is one that is still valid.
+     *
+     * @param account The account the token belongs to.
+     * @param stage   The stage the token was obtained in.
+     * @return An optional containing the valid token of the stage for the account, if there is one.
+     */
+    public Optional<MSToken> getValidToken(String account, MSTokenStage stage) {
+        return getToken(account, stage).filter(MSToken::isValid);
+    }
+
+    /**
+     * Stores the token of the stage for the account.
+     *
+     * @param account The account the token belongs to.
+     * @param stage   The stage the token was obtained in.
+     * @param token   The token to store.
+     */
+    public void putToken(String account, MSTokenStage stage, MSToken token) {
+        getTokens(account);
+        _accounts.compute(account, (key, tokens) -> {
+            Map<MSTokenStage, MSToken> updated = new EnumMap<>(MSTokenStage.class);
+            if (Objects.nonNull(tokens)) updated.putAll(tokens);
+            updated.put(stage, token);
+            return Collections.unmodifiableMap(updated);
+        });
+
+        write(account);
+    }
+
+    /**
+     * Removes the tokens of the provided stages for the account.
+     *
+     * @param account The account the tokens belong to.
+     * @param stages  The stages of which the tokens should be removed.
+     */
+    public void removeTokens(String account, MSTokenStage... stages) {
+        getTokens(account);
+        _accounts.compute(account, (key, tokens) -> {
+            Map<MSTokenStage, MSToken> updated = new EnumMap<>(MSTokenStage.class);
+            if (Objects.nonNull(tokens)) updated.putAll(tokens);
+            for (MSTokenStage stage : stages) updated.remove(stage);
+            return Collections.unmodifiableMap(updated);
+        });
+
+        write(account);
+    }
+
+    /**
+     * Removes all tokens of the account, including the refresh token.
+     *
+     * @param account The account of which the tokens should be removed.
+     */
+    public void removeAccount(String account) {
+        removeTokens(account, MSTokenStage.values());
+    }
+
+    private Map<MSTokenStage, MSToken> getTokens(String account) {
+        Objects.requireNonNull(account);
+
+        Map<MSTokenStage, MSToken> tokens = _accounts.get(account);
+        if (Objects.nonNull(tokens)) return tokens;
+
+        // The file is read outside of the map, a concurrent read of the same account is simply discarded.
+        tokens = read(account);
+        Map<MSTokenStage, MSToken> previous = _accounts.putIfAbsent(account, tokens);
+        return Objects.isNull(previous) ? tokens : previous;
+    }
+
+    private Map<MSTokenStage, MSToken> read(String account) {
+        Map<MSTokenStage, MSToken> tokens = new EnumMap<>(MSTokenStage.class);
+        File file = getFile(account);
+        if (Objects.isNull(file) || !file.isFile()) return Collections.unmodifiableMap(tokens);
+
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        for (MSTokenStage stage : MSTokenStage.values()) {
+            String name = stage.name().toLowerCase(Locale.ROOT);
+            String value = properties.getProperty(String.format(KEY_TOKEN, name));
+            String expiry = properties.getProperty(String.format(KEY_EXPIRY, name));
+            if (Objects.isNull(value) || Objects.isNull(expiry)) continue;
+
+            try {
+                tokens.put(stage, new MSToken(value, properties.getProperty(String.format(KEY_USER_HASH, name)), Instant.parse(expiry)));
+            } catch (DateTimeParseException exception) {
+                // A corrupt token only means the stage is authenticated again.
+            }
+        }
+
+        return Collections.unmodifiableMap(tokens);
+    }
+
+    /**
+     * Writes the latest tokens of the account. Writes are serialized, so the file always ends up with the latest state.
+     */
+    private synchronized void write(String account) {
+        File file = getFile(account);
+        if (Objects.isNull(file)) return;
+
+        Properties properties = new Properties();
+        properties.setProperty(KEY_ACCOUNT, account);
+        _accounts.getOrDefault(account, Collections.emptyMap()).forEach((stage, token) -> {
+            String name = stage.name().toLowerCase(Locale.ROOT);
+            properties.setProperty(String.format(KEY_TOKEN, name), token.getValue());
+            properties.setProperty(String.format(KEY_EXPIRY, name), token.getExpiry().toString());
+            if (Objects.nonNull(token.getUserHash()))
+                properties.setProperty(String.format(KEY_USER_HASH, name), token.getUserHash());
+        });
+
+        _directory.mkdirs();
+        File temporary = new File(_directory, file.getName() + ".tmp");
+        try {
+            // The tokens grant access to the account, so only the owner should be able to read them.
+            temporary.createNewFile();
+            temporary.setReadable(false, false);
+            temporary.setReadable(true, true);
+            temporary.setWritable(false, false);
+            temporary.setWritable(true, true);
+
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    private File getFile(String account) {
+        if (Objects.isNull(_directory)) return null;
+
+        String key = FileUtil.toHex(FileUtil.createSha1Digest().digest(account.getBytes(StandardCharsets.UTF_8)));
+        return new File(_directory, key + ".properties");
+    }
+
+    /**
+     * Returns the token store used by the Microsoft authenticator by default, stored in the Minecraft directory.
+     *
+     * @return The token store used by the Microsoft authenticator by default.
+     */
+    public static synchronized MSTokenStore getDefault() {
+        if (Objects.isNull(DEFAULT))
+            DEFAULT = new MSTokenStore(new File(OperatingSystem.getCurrent().getMinecraftDirectory(), ".mclapi/tokens"));
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the token store used by the Microsoft authenticator by default.
+     *
+     * @param store The new default token store.
+     */
+    public static synchronized void setDefault(MSTokenStore store) {
+        DEFAULT = Objects.requireNonNull(store);
+    }
+}
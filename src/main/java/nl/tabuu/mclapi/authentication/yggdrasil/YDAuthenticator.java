@@ -4,7 +4,7 @@ import com.google.gson.JsonObject;
 import nl.tabuu.mclapi.authentication.AuthenticationResponse;
 import nl.tabuu.mclapi.authentication.IAuthenticator;
 import nl.tabuu.mclapi.authentication.Session;
-import nl.tabuu.mclapi.util.HttpRequest;
+import nl.tabuu.mclapi.util.IHttpClient;
 
 import java.util.Map;
 import java.util.Objects;
@@ -18,6 +18,21 @@ public class YDAuthenticator implements IAuthenticator<YDAuthenticationRequest>
     private final static String
         AUTHENTICATE_URL = "https://authserver.mojang.com/authenticate";
 
+    private final IHttpClient _client;
+
+    /**
+     * Creates an authenticator that sends its requests with the provided client.
+     *
+     * @param client The client to send the requests with.
+     */
+    public YDAuthenticator(IHttpClient client) {
+        _client = Objects.requireNonNull(client);
+    }
+
+    public YDAuthenticator() {
+        this(IHttpClient.getDefault());
+    }
+
     @Override
     public CompletableFuture<AuthenticationResponse> authenticate(YDAuthenticationRequest request) {
         JsonObject agent = new JsonObject();
@@ -29,13 +44,14 @@ public class YDAuthenticator implements IAuthenticator<YDAuthenticationRequest>
         requestBody.addProperty("username", request.getUsername());
         requestBody.addProperty("password", request.getPassword());
 
-        return HttpRequest.doJsonBodyRequest(AUTHENTICATE_URL, "GET",
+        // HttpURLConnection silently turned this request into a POST because it has a body, the endpoint only accepts POST.
+        return _client.sendJson(AUTHENTICATE_URL, "POST",
                 Map.of("Content-Type", "application/json",
                         "Accept", "application/json"
                 ), requestBody)
                 .thenApply(response -> response.get("accessToken").getAsString())
                 .exceptionally(throwable -> { throwable.printStackTrace(); return ""; } )
-                .thenApply(id -> id.isEmpty() ? null : new Session(id))
+                .thenApply(id -> id.isEmpty() ? null : new Session(id, _client))
                 .thenCompose(s -> {
                     if (Objects.isNull(s))
                         return CompletableFuture.completedFuture(new AuthenticationResponse(AuthenticationResponse.State.NO_AUTHENTICATION));
@@ -1,6 +1,8 @@
 package nl.tabuu.mclapi.launcher;
 
 import nl.tabuu.mclapi.mojang.IMCVersion;
+import nl.tabuu.mclapi.mojang.LaunchPlan;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
 import nl.tabuu.mclapi.util.os.OperatingSystem;
 
 import java.io.File;
@@ -36,7 +38,28 @@ public class LauncherProfile {
         return _assetDirectory;
     }
 
+    /**
+     * Returns the name of the asset index the version is launched with, which is the id of its asset index, e.g.: "1.16".
+     * The name is taken from the launch plan in the Minecraft directory of the current operating system.
+     *
+     * @return The name of the asset index the version is launched with.
+     * @see #getAssetIndexName(File)
+     */
     public String getAssetIndexName() {
-        return getVersion().getId();
+        return getAssetIndexName(OperatingSystem.getCurrent().getMinecraftDirectory());
+    }
+
+    /**
+     * Returns the name of the asset index the version is launched with, which is the id of its asset index, e.g.: "1.16".
+     * The name is taken from the launch plan of the version installed in the Minecraft directory if there is one,
+     * otherwise the asset package of the version is resolved, which may block until its metadata is fetched.
+     *
+     * @param root The Minecraft directory the version is installed in.
+     * @return The name of the asset index the version is launched with.
+     */
+    public String getAssetIndexName(File root) {
+        return LaunchPlan.load(root, getVersion().getId())
+                .map(LaunchPlan::getAssetIndex)
+                .orElseGet(() -> getVersion().getAssetPackage().thenApply(MCAssetPackage::getAssetIndexName).join());
     }
 }
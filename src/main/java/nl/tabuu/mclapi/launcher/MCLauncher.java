@@ -1,28 +1,46 @@
 package nl.tabuu.mclapi.launcher;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import nl.tabuu.mclapi.mojang.IMCVersion;
-import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.mojang.LaunchPlan;
 import nl.tabuu.mclapi.authentication.Session;
 import nl.tabuu.mclapi.profile.IMinecraftProfile;
+import nl.tabuu.mclapi.profile.MinecraftProfile;
+import nl.tabuu.mclapi.profile.ProfileCache;
+import nl.tabuu.mclapi.util.FileUtil;
 import nl.tabuu.mclapi.util.os.OperatingSystem;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class MCLauncher {
 
-    private final static String LAUNCHER_NAME = "Another Generic Minecraft Launcher";
+    private final static String LAUNCHER_NAME = "Another Generic Minecraft Launcher", LAUNCHER_VERSION = "boii";
     private final static UUID LAUNCHER_ID = UUID.fromString("5c9a9384-6c2d-432f-a2b5-d662b22cfee9");
 
+    private static final Duration SESSION_LIFETIME = Duration.ofDays(1);
+
     private final Map<String, IMinecraftProfile> _minecraftProfiles;
+    private final Map<String, SavedSession> _sessions;
     private final OperatingSystem _operatingSystem;
     private final File _workDirectory;
+    private boolean _profilesLoaded;
 
     public MCLauncher(OperatingSystem operatingSystem, File workingDirection) {
-        _minecraftProfiles = new HashMap<>();
+        _minecraftProfiles = new ConcurrentHashMap<>();
+        _sessions = new ConcurrentHashMap<>();
         _operatingSystem = operatingSystem;
         _workDirectory = workingDirection;
     }
@@ -44,66 +62,235 @@ public class MCLauncher {
                         process.redirectError(new File(profile.getGameDirectory(), "log_error.txt"));
                         process.redirectOutput(new File(profile.getGameDirectory(), "log_output.txt"));
                         process.start();
-                        return true;
                     } catch (IOException exception) {
                         exception.printStackTrace();
                         return false;
                     }
+
+                    try {
+                        LaunchPlan.markLaunched(_workDirectory, profile.getVersion().getId());
+                    } catch (IOException exception) {
+                        exception.printStackTrace();
+                    }
+
+                    return true;
                 }).exceptionally(t -> { t.printStackTrace(); return false; });
     }
 
+    /**
+     * Returns the command that launches the version for the session.
+     * The arguments are taken from the launch plan, so no version metadata is needed for installed versions.
+     *
+     * @param session The session to launch the game with.
+     * @param version The version to launch.
+     * @return The command that launches the version.
+     */
     public CompletableFuture<List<String>> getLaunchCommand(Session session, IMCVersion version) {
-        File libraries = new File(_workDirectory, "/libraries/");
-        File jar = new File(_workDirectory, String.format("/versions/%s/%s.jar", version.getId(), version.getId()));
-
-        return session.getProfile().thenCombine(getLibraryString(libraries, version), (profile, string) ->
-            Arrays.asList(
-                    "java",
-                    "-Xms256M",
-                    "-Xmx1G",
-                    String.format("-Djava.library.path=%s", new File(_workDirectory, String.format("/versions/%s/natives/", version.getId()))),
-                    "-cp", jar.getPath() + _operatingSystem.getPathSeparator() + string,
-                    "-Dminecraft.launcher.brand=" + LAUNCHER_NAME,
-                    "-Dminecraft.launcher.version=boii",
-                    "net.minecraft.client.main.Main",
-                    "--username", profile.getUserName(),
-                    "--version", version.getId(),
-                    "--gameDir", _workDirectory.getPath(),
-                    "--assetsDir", new File(_workDirectory, "/assets/").getPath(),
-                    "--assetIndex", version.getId(),
-                    "--uuid", profile.getUserId().toString().replaceAll("-", ""),
-                    "--accessToken", session.getId(),
-                    "--userType", "legacy",
-                    "--versionType", "release"
-            )
-        );
-    }
-
-    private CompletableFuture<String> getLibraryString(File library, IMCVersion version) {
-        return version.getAssetPackage()
-                .thenApply(pack -> {
-                    List<MCAssetPackage.DownloadableLibraryWrapper> libraries = new LinkedList<>();
-                    libraries.addAll(Arrays.asList(pack.getClassifiers()));
-                    libraries.addAll(Arrays.asList(pack.getLibraries()));
-
-                    return libraries.stream()
-                            .filter(Objects::nonNull)
-                            .map(MCAssetPackage.DownloadableLibraryWrapper::getPath)
-                            .map(s -> new File(library, s).getPath())
-                            .collect(Collectors.joining(_operatingSystem.getPathSeparator()));
-                });
+        return getMinecraftProfile(session).thenCombine(getLaunchPlan(version), (profile, plan) -> {
+            Map<String, String> values = new HashMap<>();
+            values.put("auth_player_name", profile.getUserName());
+            values.put("auth_uuid", profile.getUserId().toString().replaceAll("-", ""));
+            values.put("auth_access_token", session.getId());
+            values.put("auth_session", session.getId());
+            values.put("auth_xuid", "");
+            values.put("clientid", LAUNCHER_ID.toString());
+            values.put("user_type", "legacy");
+            values.put("user_properties", "{}");
+            values.put("game_directory", _workDirectory.getPath());
+            values.put("assets_root", new File(_workDirectory, "assets").getPath());
+            values.put("game_assets", new File(_workDirectory, "assets").getPath());
+            values.put("natives_directory", plan.getNativesDirectory(_workDirectory).getPath());
+            values.put("classpath", getClasspathString(plan));
+            values.put("classpath_separator", _operatingSystem.getPathSeparator());
+            values.put("library_directory", new File(_workDirectory, "libraries").getPath());
+            values.put("launcher_name", LAUNCHER_NAME);
+            values.put("launcher_version", LAUNCHER_VERSION);
+
+            List<String> command = new ArrayList<>(List.of("java", "-Xms256M", "-Xmx1G"));
+            command.addAll(plan.getJvmArguments(values));
+            command.add(plan.getMainClass());
+            command.addAll(plan.getGameArguments(values));
+
+            return command;
+        });
+    }
+
+    /**
+     * Returns the launch plan of the version. The plan written at install time is used if there is one,
+     * otherwise the plan is resolved from the asset package of the version.
+     *
+     * @param version The version to get the launch plan of.
+     * @return The launch plan of the version.
+     */
+    public CompletableFuture<LaunchPlan> getLaunchPlan(IMCVersion version) {
+        return LaunchPlan.load(_workDirectory, version.getId())
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> version.getAssetPackage().thenApply(LaunchPlan::of));
+    }
+
+    /**
+     * Returns the name of the asset index the version of the profile is launched with, e.g.: "1.16".
+     * The name is taken from the launch plan in the work directory of this launcher.
+     *
+     * @param profile The profile to get the asset index name of.
+     * @return A future that completes with the name of the asset index the version of the profile is launched with.
+     */
+    public CompletableFuture<String> getAssetIndexName(LauncherProfile profile) {
+        return getLaunchPlan(profile.getVersion()).thenApply(LaunchPlan::getAssetIndex);
+    }
+
+    private String getClasspathString(LaunchPlan plan) {
+        return plan.getClasspath(_workDirectory).stream()
+                .map(File::getPath)
+                .collect(Collectors.joining(_operatingSystem.getPathSeparator()));
     }
 
     public Optional<IMinecraftProfile> getMinecraftProfile(String username) {
+        loadProfiles();
         return Optional.ofNullable(_minecraftProfiles.get(username));
     }
 
+    /**
+     * Returns the profile of the session. The profile is taken from the {@link ProfileCache}, or from the profiles
+     * saved for the session by an earlier run, before it is requested from the Mojang servers.
+     * Requested profiles are saved, so the next launch with the same session does not request it again.
+     *
+     * @param session The session to get the profile of.
+     * @return The profile of the session.
+     */
+    public CompletableFuture<IMinecraftProfile> getMinecraftProfile(Session session) {
+        Optional<IMinecraftProfile> cached = ProfileCache.getDefault().get(session.getId());
+        if (cached.isPresent()) return CompletableFuture.completedFuture(cached.get());
+
+        loadProfiles();
+        SavedSession saved = _sessions.get(getSessionKey(session));
+        if (Objects.nonNull(saved) && !saved.isExpired()) {
+            Optional<IMinecraftProfile> profile = _minecraftProfiles.values().stream()
+                    .filter(candidate -> candidate.getUserId().equals(saved.userId))
+                    .findAny();
+
+            if (profile.isPresent()) {
+                ProfileCache.getDefault().put(session.getId(), profile.get());
+                return CompletableFuture.completedFuture(profile.get());
+            }
+        }
+
+        return session.getProfile().thenApply(profile -> {
+            saveMinecraftProfile(session, profile);
+            return profile;
+        });
+    }
+
     public Set<IMinecraftProfile> getMinecraftProfiles() {
+        loadProfiles();
         return new HashSet<>(_minecraftProfiles.values());
     }
 
+    /**
+     * Saves the profile, so it is available after a restart.
+     *
+     * @param profile The profile to save.
+     */
     public void saveMinecraftProfile(IMinecraftProfile profile) {
+        loadProfiles();
         _minecraftProfiles.put(profile.getUserName(), profile);
+        writeProfiles();
+    }
+
+    /**
+     * Saves the profile as the profile of the session, so launching with the session after a restart does not request it again.
+     * Only a hash of the session id is saved.
+     *
+     * @param session The session the profile belongs to.
+     * @param profile The profile to save.
+     */
+    public void saveMinecraftProfile(Session session, IMinecraftProfile profile) {
+        loadProfiles();
+        _minecraftProfiles.put(profile.getUserName(), profile);
+        _sessions.put(getSessionKey(session), new SavedSession(profile.getUserId(), System.currentTimeMillis()));
+        ProfileCache.getDefault().put(session.getId(), profile);
+        writeProfiles();
+    }
+
+    private File getProfilesFile() {
+        return new File(_workDirectory, ".mclapi/profiles.json");
+    }
+
+    private synchronized void loadProfiles() {
+        if (_profilesLoaded) return;
+        _profilesLoaded = true;
+
+        File file = getProfilesFile();
+        if (!file.isFile()) return;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+
+            for (JsonElement element : json.getAsJsonArray("profiles")) {
+                JsonObject profile = element.getAsJsonObject();
+                String skinUrl = profile.has("skinUrl") ? profile.get("skinUrl").getAsString() : null;
+                IMinecraftProfile loaded = new MinecraftProfile(UUID.fromString(profile.get("id").getAsString()), profile.get("name").getAsString(), skinUrl);
+                _minecraftProfiles.putIfAbsent(loaded.getUserName(), loaded);
+            }
+
+            for (JsonElement element : json.getAsJsonArray("sessions")) {
+                JsonObject session = element.getAsJsonObject();
+                SavedSession saved = new SavedSession(UUID.fromString(session.get("id").getAsString()), session.get("saved").getAsLong());
+                if (!saved.isExpired()) _sessions.putIfAbsent(session.get("session").getAsString(), saved);
+            }
+        } catch (IOException | RuntimeException exception) {
+            // A corrupt file only means the profiles are requested again.
+            exception.printStackTrace();
+        }
+    }
+
+    private synchronized void writeProfiles() {
+        JsonArray profiles = new JsonArray();
+        for (IMinecraftProfile profile : _minecraftProfiles.values()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("id", profile.getUserId().toString());
+            json.addProperty("name", profile.getUserName());
+            if (Objects.nonNull(profile.getSkinUrl())) json.addProperty("skinUrl", profile.getSkinUrl());
+            profiles.add(json);
+        }
+
+        JsonArray sessions = new JsonArray();
+        _sessions.forEach((key, saved) -> {
+            if (saved.isExpired()) return;
+
+            JsonObject json = new JsonObject();
+            json.addProperty("session", key);
+            json.addProperty("id", saved.userId.toString());
+            json.addProperty("saved", saved.saved);
+            sessions.add(json);
+        });
+
+        JsonObject json = new JsonObject();
+        json.add("profiles", profiles);
+        json.add("sessions", sessions);
+
+        // The profiles are written next to the file and then moved over it, so a crash never leaves a partially written file.
+        File file = getProfilesFile();
+        file.getParentFile().mkdirs();
+        try {
+            Path temporary = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try {
+                Files.writeString(temporary, json.toString(), StandardCharsets.UTF_8);
+                try {
+                    Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException exception) {
+                    Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    private static String getSessionKey(Session session) {
+        return FileUtil.toHex(FileUtil.createSha1Digest().digest(session.getId().getBytes(StandardCharsets.UTF_8)));
     }
 
     public static String getLauncherName() {
@@ -113,4 +300,18 @@ public class MCLauncher {
     public static UUID getLauncherId() {
         return LAUNCHER_ID;
     }
-}
\ No newline at end of file
+
+    private static class SavedSession {
+        private final UUID userId;
+        private final long saved;
+
+        private SavedSession(UUID userId, long saved) {
+            this.userId = userId;
+            this.saved = saved;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - saved > SESSION_LIFETIME.toMillis();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package nl.tabuu.mclapi.minecraft;
+
+/**
+ * Listens to the status changes of servers watched by a {@link ServerStatusMonitor}.
+ */
+@FunctionalInterface
+public interface IServerStatusListener {
+
+    /**
+     * Called when the player count, version or description of a server changed, or when a server was reached for the first time.
+     *
+     * @param previous The previous status of the server, or null if the server was not reached before.
+     * @param current  The current status of the server.
+     */
+    void onStatusChanged(ServerInfo previous, ServerInfo current);
+}
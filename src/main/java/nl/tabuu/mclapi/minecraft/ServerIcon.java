@@ -0,0 +1,164 @@
+package nl.tabuu.mclapi.minecraft;
+
+import nl.tabuu.mclapi.util.FileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The favicon of a server. Icons are shared by content, since most servers of a network send the same icon,
+ * and are only decoded from base64 when their data is first accessed.
+ */
+public final class ServerIcon {
+
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+
+    private static final Map<String, IconReference> ICONS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<ServerIcon> RELEASED = new ReferenceQueue<>();
+
+    private final String _hash;
+
+    private String _encoded;
+    private volatile byte[] _data;
+
+    private ServerIcon(String hash, String encoded) {
+        _hash = hash;
+        _encoded = encoded;
+    }
+
+    /**
+     * Returns the icon described by the base64 data, optionally prefixed with a png data uri scheme.
+     * Equal icons return the same instance for as long as it is in use.
+     *
+     * @param data The base64 data of the icon.
+     * @return The icon described by the data, or null if the data is null or empty.
+     */
+    public static ServerIcon of(String data) {
+        if (Objects.isNull(data)) return null;
+
+        String encoded = data.startsWith(DATA_URI_PREFIX) ? data.substring(DATA_URI_PREFIX.length()) : data;
+        if (encoded.isEmpty()) return null;
+
+        MessageDigest digest = FileUtil.createSha1Digest();
+        String hash = FileUtil.toHex(digest.digest(encoded.getBytes(StandardCharsets.ISO_8859_1)));
+
+        expungeReleased();
+        while (true) {
+            IconReference reference = ICONS.get(hash);
+            ServerIcon icon = Objects.isNull(reference) ? null : reference.get();
+            if (Objects.nonNull(icon)) return icon;
+
+            icon = new ServerIcon(hash, encoded);
+            IconReference created = new IconReference(icon);
+            boolean stored = Objects.isNull(reference)
+                    ? Objects.isNull(ICONS.putIfAbsent(hash, created))
+                    : ICONS.replace(hash, reference, created);
+
+            if (stored) return icon;
+        }
+    }
+
+    /**
+     * Returns the SHA-1 hash of the base64 data of the icon, as hexadecimal string.
+     *
+     * @return The SHA-1 hash of the base64 data of the icon.
+     */
+    public String getHash() {
+        return _hash;
+    }
+
+    /**
+     * Returns a read-only buffer containing the decoded png data of the icon.
+     *
+     * @return A read-only buffer containing the decoded png data of the icon.
+     */
+    public ByteBuffer getData() {
+        return ByteBuffer.wrap(decode()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a stream of the decoded png data of the icon.
+     *
+     * @return A stream of the decoded png data of the icon.
+     */
+    public InputStream openStream() {
+        return new ByteArrayInputStream(decode());
+    }
+
+    /**
+     * Returns the size of the decoded png data of the icon, in bytes.
+     *
+     * @return The size of the decoded png data of the icon.
+     */
+    public int getSize() {
+        return decode().length;
+    }
+
+    /**
+     * Returns the icon as base64 string, as sent by the server without the data uri scheme.
+     *
+     * @return The icon as base64 string.
+     */
+    public String toBase64() {
+        synchronized (this) {
+            if (Objects.nonNull(_encoded)) return _encoded;
+        }
+
+        return Base64.getEncoder().encodeToString(decode());
+    }
+
+    private byte[] decode() {
+        byte[] data = _data;
+        if (Objects.nonNull(data)) return data;
+
+        synchronized (this) {
+            if (Objects.isNull(_data)) {
+                try {
+                    _data = Base64.getMimeDecoder().decode(_encoded);
+                } catch (IllegalArgumentException exception) {
+                    exception.printStackTrace();
+                    _data = new byte[0];
+                }
+
+                // The decoded bytes are smaller than the base64 string, which is not needed anymore.
+                _encoded = null;
+            }
+
+            return _data;
+        }
+    }
+
+    private static void expungeReleased() {
+        IconReference reference;
+        while (Objects.nonNull(reference = (IconReference) RELEASED.poll()))
+            ICONS.remove(reference.hash, reference);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof ServerIcon && _hash.equals(((ServerIcon) other)._hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return _hash.hashCode();
+    }
+
+    private static class IconReference extends WeakReference<ServerIcon> {
+        private final String hash;
+
+        private IconReference(ServerIcon icon) {
+            super(icon, RELEASED);
+            hash = icon._hash;
+        }
+    }
+}
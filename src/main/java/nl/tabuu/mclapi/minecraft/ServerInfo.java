@@ -5,21 +5,34 @@ import nl.tabuu.mclapi.profile.IMinecraftProfile;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 public class ServerInfo {
-    private final String _host, _description, _version, _iconData;
+    private final String _host, _description, _version;
+    private final ServerIcon _icon;
     private final int _port, _maxPlayerCount, _playerCount;
     private final Map<String, String> _onlinePlayerSampleList;
+    private final ServerLatency _latency;
 
-    public ServerInfo(String host, String description, String version, String iconData, int port, int maxPlayerCount, int playerCount, Map<String, String> onlinePlayerSampleList) {
+    public ServerInfo(String host, String description, String version, ServerIcon icon, int port, int maxPlayerCount, int playerCount, Map<String, String> onlinePlayerSampleList, ServerLatency latency) {
         _host = host;
         _description = description;
         _version = version;
-        _iconData = iconData;
+        _icon = icon;
         _port = port;
         _maxPlayerCount = maxPlayerCount;
         _playerCount = playerCount;
         _onlinePlayerSampleList = new HashMap<>(onlinePlayerSampleList);
+        _latency = latency;
+    }
+
+    public ServerInfo(String host, String description, String version, String iconData, int port, int maxPlayerCount, int playerCount, Map<String, String> onlinePlayerSampleList, ServerLatency latency) {
+        this(host, description, version, ServerIcon.of(iconData), port, maxPlayerCount, playerCount, onlinePlayerSampleList, latency);
+    }
+
+    public ServerInfo(String host, String description, String version, String iconData, int port, int maxPlayerCount, int playerCount, Map<String, String> onlinePlayerSampleList) {
+        this(host, description, version, iconData, port, maxPlayerCount, playerCount, onlinePlayerSampleList, null);
     }
 
     public String getHost() {
@@ -34,8 +47,23 @@ public class ServerInfo {
         return _version;
     }
 
+    /**
+     * Returns the favicon of the server as base64 string, or an empty string if the server has no favicon.
+     * Prefer {@link #getIcon()}, which does not copy the data.
+     *
+     * @return The favicon of the server as base64 string.
+     */
     public String getIconData() {
-        return _iconData;
+        return Objects.isNull(_icon) ? "" : _icon.toBase64();
+    }
+
+    /**
+     * Returns an optional containing the favicon of the server, if it has one.
+     *
+     * @return An optional containing the favicon of the server, if it has one.
+     */
+    public Optional<ServerIcon> getIcon() {
+        return Optional.ofNullable(_icon);
     }
 
     public int getPort() {
@@ -50,6 +78,15 @@ public class ServerInfo {
         return _playerCount;
     }
 
+    /**
+     * Returns an optional containing the latency measured while pinging the server, if it was measured.
+     *
+     * @return An optional containing the latency measured while pinging the server, if it was measured.
+     */
+    public Optional<ServerLatency> getLatency() {
+        return Optional.ofNullable(_latency);
+    }
+
     public List<IMinecraftProfile> getOnlinePlayerSampleList() {
         return null;
     }
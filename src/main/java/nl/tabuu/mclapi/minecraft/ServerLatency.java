@@ -0,0 +1,116 @@
+package nl.tabuu.mclapi.minecraft;
+
+import java.util.Arrays;
+
+/**
+ * Represents the latency of a server, measured while pinging it. All times are in nanoseconds.
+ * A latency can contain multiple round trip samples, of which the minimum, average and 99th percentile are reported.
+ */
+public class ServerLatency {
+
+    private final long _connectNanos, _firstByteNanos;
+    private final long[] _roundTripNanos, _sorted;
+
+    /**
+     * Creates a latency.
+     *
+     * @param connectNanos   The time it took to open the connection.
+     * @param firstByteNanos The time between sending the status request and receiving the first byte of the response.
+     * @param roundTripNanos The measured ping/pong round trip times, in the order they were measured.
+     */
+    public ServerLatency(long connectNanos, long firstByteNanos, long[] roundTripNanos) {
+        _connectNanos = connectNanos;
+        _firstByteNanos = firstByteNanos;
+        _roundTripNanos = roundTripNanos.clone();
+        _sorted = roundTripNanos.clone();
+        Arrays.sort(_sorted);
+    }
+
+    /**
+     * Returns the time it took to open the connection.
+     *
+     * @return The time it took to open the connection.
+     */
+    public long getConnectNanos() {
+        return _connectNanos;
+    }
+
+    /**
+     * Returns the time between sending the status request and receiving the first byte of the response.
+     *
+     * @return The time between sending the status request and receiving the first byte of the response.
+     */
+    public long getFirstByteNanos() {
+        return _firstByteNanos;
+    }
+
+    /**
+     * Returns the first measured ping/pong round trip time, or -1 if the server did not answer the ping.
+     *
+     * @return The first measured round trip time, or -1 if there is none.
+     */
+    public long getRoundTripNanos() {
+        return _roundTripNanos.length == 0 ? -1 : _roundTripNanos[0];
+    }
+
+    /**
+     * Returns the amount of measured round trip times.
+     *
+     * @return The amount of measured round trip times.
+     */
+    public int getSampleCount() {
+        return _roundTripNanos.length;
+    }
+
+    /**
+     * Returns the lowest measured round trip time, or -1 if there is none.
+     *
+     * @return The lowest measured round trip time, or -1 if there is none.
+     */
+    public long getMinRoundTripNanos() {
+        return _sorted.length == 0 ? -1 : _sorted[0];
+    }
+
+    /**
+     * Returns the average of the measured round trip times, or -1 if there is none.
+     *
+     * @return The average of the measured round trip times, or -1 if there is none.
+     */
+    public long getAverageRoundTripNanos() {
+        if (_sorted.length == 0) return -1;
+
+        long sum = 0;
+        for (long sample : _sorted)
+            sum += sample;
+
+        return sum / _sorted.length;
+    }
+
+    /**
+     * Returns the 99th percentile (nearest rank) of the measured round trip times, or -1 if there is none.
+     *
+     * @return The 99th percentile of the measured round trip times, or -1 if there is none.
+     */
+    public long getP99RoundTripNanos() {
+        if (_sorted.length == 0) return -1;
+
+        int rank = (int) Math.ceil(_sorted.length * 0.99);
+        return _sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Returns the measured round trip times, in the order they were measured.
+     *
+     * @return The measured round trip times.
+     */
+    public long[] getRoundTripSamples() {
+        return _roundTripNanos.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("connect=%.2fms, firstByte=%.2fms, rtt min/avg/p99=%.2f/%.2f/%.2fms (%d samples)",
+                _connectNanos / 1e6, _firstByteNanos / 1e6,
+                getMinRoundTripNanos() / 1e6, getAverageRoundTripNanos() / 1e6, getP99RoundTripNanos() / 1e6, getSampleCount());
+    }
+}
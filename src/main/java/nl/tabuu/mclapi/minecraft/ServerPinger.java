@@ -0,0 +1,464 @@
+package nl.tabuu.mclapi.minecraft;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import nl.tabuu.mclapi.minecraft.packet.*;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Pings many servers at once from a single thread, by multiplexing non-blocking connections over one {@link Selector}.
+ * After the status response, the round trip time is measured with a ping/pong exchange on the same connection.
+ */
+public class ServerPinger implements Closeable {
+
+    private static final int PROTOCOL_VERSION = -1;
+    private static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    private static final Duration DEFAULT_TIME_OUT = Duration.ofSeconds(1);
+
+    private final Selector _selector;
+    private final Thread _thread;
+    private final long _timeout;
+    private final int _maxConnections;
+    private final Executor _executor;
+
+    private final Queue<Connection> _submitted, _waiting, _deadlines;
+    private int _open;
+    private volatile boolean _running;
+
+    /**
+     * Creates a pinger, and starts its selector thread.
+     *
+     * @param timeout        The maximum time a single ping may take, from connecting until the response is read.
+     * @param maxConnections The maximum amount of connections that are open at the same time.
+     * @param executor       The executor the futures of the pings are completed on, which runs their callbacks.
+     * @throws IOException If the selector could not be opened.
+     */
+    public ServerPinger(Duration timeout, int maxConnections, Executor executor) throws IOException {
+        _selector = Selector.open();
+        _timeout = timeout.toNanos();
+        _maxConnections = maxConnections;
+        _executor = Objects.requireNonNull(executor);
+
+        _submitted = new ConcurrentLinkedQueue<>();
+        _waiting = new ArrayDeque<>();
+        _deadlines = new PriorityQueue<>(Comparator.comparingLong(connection -> connection.deadline));
+        _running = true;
+
+        _thread = new Thread(this::run, "mclapi-server-pinger");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    public ServerPinger(Duration timeout, int maxConnections) throws IOException {
+        this(timeout, maxConnections, ForkJoinPool.commonPool());
+    }
+
+    public ServerPinger() throws IOException {
+        this(DEFAULT_TIME_OUT, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Pings the server. The returned future is completed on the executor of this pinger.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @return A future that completes with the server info, or exceptionally if the server could not be pinged.
+     */
+    public CompletableFuture<ServerInfo> ping(String host, int port) {
+        // Resolving is blocking, so it is done by the caller rather than on the selector thread.
+        return ping(new InetSocketAddress(host, port));
+    }
+
+    /**
+     * Pings the server.
+     *
+     * @param address The address of the server.
+     * @return A future that completes with the server info, or exceptionally if the server could not be pinged.
+     */
+    public CompletableFuture<ServerInfo> ping(InetSocketAddress address) {
+        return ping(address, 1);
+    }
+
+    /**
+     * Pings the server, and measures the ping/pong round trip time the provided amount of times.
+     * The first sample is taken on the status connection. Because servers close the connection after the pong,
+     * every further sample is taken on a new connection. The timeout applies to every sample.
+     *
+     * @param address The address of the server.
+     * @param samples The amount of round trip times to measure.
+     * @return A future that completes with the server info, or exceptionally if the server could not be pinged.
+     */
+    public CompletableFuture<ServerInfo> ping(InetSocketAddress address, int samples) {
+        Connection connection = new Connection(address, Math.max(samples, 1));
+        if (address.isUnresolved()) {
+            connection.result.completeExceptionally(new UnresolvedAddressException());
+            return connection.result;
+        }
+
+        if (!_running) {
+            connection.result.completeExceptionally(new ClosedSelectorException());
+            return connection.result;
+        }
+
+        _submitted.add(connection);
+
+        // The pinger may have shut down after the check above, without seeing this connection.
+        if (!_running && _submitted.remove(connection)) {
+            connection.result.completeExceptionally(new ClosedSelectorException());
+            return connection.result;
+        }
+
+        _selector.wakeup();
+        return connection.result;
+    }
+
+    /**
+     * Pings all servers, calling the callback for every server as soon as its ping completes.
+     * The callback is called with null as server info if the server could not be pinged.
+     *
+     * @param targets  The addresses of the servers.
+     * @param callback The callback to call with every result.
+     * @return A future that completes once all servers have been pinged.
+     */
+    public CompletableFuture<Void> pingAll(Collection<InetSocketAddress> targets, BiConsumer<InetSocketAddress, ServerInfo> callback) {
+        return pingAll(targets, 1, callback);
+    }
+
+    /**
+     * Pings all servers, measuring the round trip time of every server the provided amount of times,
+     * and calls the callback for every server as soon as its ping completes.
+     * The callback is called with null as server info if the server could not be pinged.
+     *
+     * @param targets  The addresses of the servers.
+     * @param samples  The amount of round trip times to measure per server.
+     * @param callback The callback to call with every result.
+     * @return A future that completes once all servers have been pinged.
+     */
+    public CompletableFuture<Void> pingAll(Collection<InetSocketAddress> targets, int samples, BiConsumer<InetSocketAddress, ServerInfo> callback) {
+        CompletableFuture<?>[] pings = targets.stream()
+                .map(target -> ping(target, samples)
+                        .handle((info, throwable) -> {
+                            callback.accept(target, info);
+                            return null;
+                        }))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(pings);
+    }
+
+    /**
+     * Stops the selector thread, failing all pings that did not complete yet.
+     *
+     * @throws IOException If the selector could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        _running = false;
+        _selector.wakeup();
+
+        try {
+            _thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (_running) {
+                open();
+
+                long wait = 0;
+                Connection first = _deadlines.peek();
+                if (Objects.nonNull(first))
+                    wait = Math.max(1, (first.deadline - System.nanoTime()) / 1_000_000);
+
+                _selector.select(wait);
+
+                Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle((Connection) key.attachment(), key);
+                }
+
+                expire();
+            }
+        } catch (IOException | ClosedSelectorException exception) {
+            exception.printStackTrace();
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void open() {
+        Connection connection;
+        while (Objects.nonNull(connection = _submitted.poll()))
+            _waiting.add(connection);
+
+        while (_open < _maxConnections && Objects.nonNull(connection = _waiting.poll())) {
+            try {
+                connection.open = true;
+                connection.deadline = System.nanoTime() + _timeout * connection.roundTrips.length;
+                connection.request = ProtocolCodec.getBufferPool().acquire();
+                connection.response = ProtocolCodec.getBufferPool().acquire();
+                _open++;
+                _deadlines.add(connection);
+
+                connect(connection);
+            } catch (IOException | RuntimeException exception) {
+                finish(connection, exception);
+            }
+        }
+    }
+
+    private void connect(Connection connection) throws IOException {
+        connection.start = System.nanoTime();
+        connection.channel = SocketChannel.open();
+        connection.channel.configureBlocking(false);
+        connection.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        if (connection.channel.connect(connection.address)) {
+            connection.channel.register(_selector, 0, connection);
+            connected(connection);
+        } else {
+            connection.channel.register(_selector, SelectionKey.OP_CONNECT, connection);
+        }
+    }
+
+    private void connected(Connection connection) throws IOException {
+        if (Objects.isNull(connection.json))
+            connection.connectNanos = System.nanoTime() - connection.start;
+
+        send(connection, true);
+    }
+
+    /**
+     * Writes the next request: the status request if the status was not received yet, otherwise a ping.
+     */
+    private void send(Connection connection, boolean handshake) throws IOException {
+        ByteBuffer request = connection.request.clear();
+        if (handshake)
+            ProtocolCodec.writePacket(request, new HandshakePacket(PROTOCOL_VERSION, connection.host, connection.port, HandshakePacket.STATE_STATUS));
+
+        if (Objects.isNull(connection.json)) {
+            ProtocolCodec.writePacket(request, StatusRequestPacket.INSTANCE);
+        } else {
+            connection.payload = System.nanoTime();
+            ProtocolCodec.writePacket(request, new PingPacket(connection.payload));
+        }
+
+        request.flip();
+        flush(connection);
+    }
+
+    private void flush(Connection connection) throws IOException {
+        connection.channel.write(connection.request);
+
+        SelectionKey key = connection.channel.keyFor(_selector);
+        if (connection.request.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            connection.sent = System.nanoTime();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void handle(Connection connection, SelectionKey key) {
+        try {
+            if (!key.isValid()) return;
+
+            if (key.isConnectable()) {
+                if (!connection.channel.finishConnect()) return;
+                connected(connection);
+            } else if (key.isWritable()) {
+                flush(connection);
+            } else if (key.isReadable()) {
+                receive(connection);
+            }
+        } catch (IOException | RuntimeException exception) {
+            finish(connection, exception);
+        }
+    }
+
+    private void receive(Connection connection) throws IOException {
+        int read = connection.channel.read(connection.response);
+        long now = System.nanoTime();
+        if (read < 0) throw new EOFException("Premature end of stream");
+
+        if (Objects.isNull(connection.json) && connection.firstByteNanos < 0)
+            connection.firstByteNanos = now - connection.sent;
+
+        ByteBuffer frame = readFrame(connection);
+        if (Objects.isNull(frame)) return;
+
+        int id = ProtocolCodec.readVarInt(frame);
+        if (Objects.isNull(connection.json)) {
+            if (id != StatusResponsePacket.ID) throw new ProtocolException("Invalid packet id");
+
+            connection.json = JsonParser.parseString(StatusResponsePacket.read(frame).getJson()).getAsJsonObject();
+            connection.response.clear();
+            send(connection, false);
+            return;
+        }
+
+        if (id != PongPacket.ID || PongPacket.read(frame).getPayload() != connection.payload)
+            throw new ProtocolException("Invalid pong");
+
+        connection.roundTrips[connection.measured++] = now - connection.payload;
+        if (connection.measured < connection.roundTrips.length) {
+            connection.channel.close();
+            connection.response.clear();
+            connect(connection);
+        } else {
+            finish(connection, null);
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+
+        Connection connection;
+        while (Objects.nonNull(connection = _deadlines.peek()) && (connection.finished || connection.deadline <= now)) {
+            _deadlines.poll();
+            if (!connection.finished)
+                finish(connection, new SocketTimeoutException(String.format("Ping to %s:%d timed out", connection.host, connection.port)));
+        }
+    }
+
+    /**
+     * Closes the connection, and completes its ping. Once the status was received the ping completes successfully,
+     * with the round trip times that were measured until then.
+     */
+    private void finish(Connection connection, Throwable throwable) {
+        if (connection.finished) return;
+        connection.finished = true;
+
+        if (Objects.nonNull(connection.channel)) {
+            try {
+                connection.channel.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+
+            connection.channel = null;
+        }
+
+        if (connection.open) {
+            connection.open = false;
+            _open--;
+        }
+
+        ProtocolCodec.getBufferPool().release(connection.request);
+        ProtocolCodec.getBufferPool().release(connection.response);
+        connection.request = connection.response = null;
+
+        ServerInfo info = null;
+        if (Objects.nonNull(connection.json)) {
+            try {
+                ServerLatency latency = new ServerLatency(connection.connectNanos, connection.firstByteNanos,
+                        Arrays.copyOf(connection.roundTrips, connection.measured));
+                info = ServerPingPacket.fromJson(connection.host, connection.port, connection.json, latency);
+            } catch (RuntimeException exception) {
+                throwable = exception;
+            }
+        }
+
+        complete(connection.result, info, throwable);
+    }
+
+    /**
+     * Completes the future on the executor, so callbacks never run on (and never block) the selector thread.
+     */
+    private void complete(CompletableFuture<ServerInfo> result, ServerInfo info, Throwable throwable) {
+        Runnable completion = () -> {
+            if (Objects.nonNull(info)) result.complete(info);
+            else result.completeExceptionally(throwable);
+        };
+
+        try {
+            _executor.execute(completion);
+        } catch (RejectedExecutionException exception) {
+            completion.run();
+        }
+    }
+
+    private void shutdown() {
+        _running = false;
+
+        Connection connection;
+        while (Objects.nonNull(connection = _submitted.poll()))
+            _waiting.add(connection);
+        _waiting.addAll(_deadlines);
+        _deadlines.clear();
+
+        while (Objects.nonNull(connection = _waiting.poll()))
+            finish(connection, new ClosedSelectorException());
+
+        try {
+            _selector.close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the content of the received frame if it was read completely, otherwise null.
+     */
+    private static ByteBuffer readFrame(Connection connection) throws IOException {
+        ByteBuffer buffer = connection.response;
+        ByteBuffer view = buffer.duplicate().flip();
+
+        int length = ProtocolCodec.getFrameLength(view);
+        if (length < 0 || length > view.remaining()) {
+            // Grow the buffer to fit the whole frame, so the next reads complete it.
+            if (length > buffer.capacity())
+                connection.response = ByteBuffer.allocate(length).put(view);
+            return null;
+        }
+
+        return ProtocolCodec.readFrame(view);
+    }
+
+    private static class Connection {
+        private final InetSocketAddress address;
+        private final String host;
+        private final int port;
+        private final CompletableFuture<ServerInfo> result;
+        private final long[] roundTrips;
+
+        private SocketChannel channel;
+        private ByteBuffer request, response;
+        private boolean open, finished;
+        private long deadline, start, sent, payload;
+
+        private JsonObject json;
+        private long connectNanos, firstByteNanos = -1;
+        private int measured;
+
+        private Connection(InetSocketAddress address, int samples) {
+            this.address = address;
+            this.host = address.getHostString();
+            this.port = address.getPort();
+            this.result = new CompletableFuture<>();
+            this.roundTrips = new long[samples];
+        }
+    }
+}
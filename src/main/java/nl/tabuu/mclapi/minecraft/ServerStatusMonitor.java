@@ -0,0 +1,324 @@
+package nl.tabuu.mclapi.minecraft;
+
+import nl.tabuu.mclapi.minecraft.packet.ServerPingPacket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps the latest status of servers, so callers polling the same servers share the pings.
+ * Statuses are cached for a time to live, concurrent requests for the same server share one in-flight ping,
+ * and watched servers are polled periodically, backing off while they are unreachable.
+ * Servers that are not watched are forgotten once they were not requested for longer than the time to live.
+ */
+public class ServerStatusMonitor implements Closeable {
+
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(30), MAX_BACKOFF = Duration.ofMinutes(10);
+    private static final int MAX_BACKOFF_SHIFT = 6;
+    private static final double JITTER = 0.1;
+
+    private final BiFunction<String, Integer, CompletableFuture<ServerInfo>> _pinger;
+    private final ScheduledExecutorService _scheduler;
+    private final Map<String, Entry> _entries;
+    private final List<IServerStatusListener> _listeners;
+    private final AtomicLong _lastEviction;
+    private volatile Duration _timeToLive;
+
+    /**
+     * Creates a monitor that pings servers with the provided function.
+     *
+     * @param pinger The function that pings a server by host and port, e.g.: {@link ServerPinger#ping(String, int)}.
+     */
+    public ServerStatusMonitor(BiFunction<String, Integer, CompletableFuture<ServerInfo>> pinger) {
+        _pinger = Objects.requireNonNull(pinger);
+        _entries = new ConcurrentHashMap<>();
+        _listeners = new CopyOnWriteArrayList<>();
+        _timeToLive = DEFAULT_TIME_TO_LIVE;
+        _lastEviction = new AtomicLong(System.nanoTime());
+
+        _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mclapi-status-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ServerStatusMonitor(ServerPinger pinger) {
+        this(pinger::ping);
+    }
+
+    public ServerStatusMonitor() {
+        this((host, port) -> new ServerPingPacket(host, port).ping());
+    }
+
+    /**
+     * Returns the time a status is served from the cache without pinging the server again.
+     *
+     * @return The time a status is served from the cache.
+     */
+    public Duration getTimeToLive() {
+        return _timeToLive;
+    }
+
+    /**
+     * Sets the time a status is served from the cache without pinging the server again.
+     *
+     * @param timeToLive The time a status is served from the cache.
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        _timeToLive = Objects.requireNonNull(timeToLive);
+    }
+
+    /**
+     * Returns the status of the server. The cached status is returned if it is younger than the time to live,
+     * otherwise the server is pinged. Concurrent requests for the same server share the same ping.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @return A future that completes with the status of the server, or exceptionally if the server could not be reached.
+     */
+    public CompletableFuture<ServerInfo> getStatus(String host, int port) {
+        Entry entry = getEntry(host, port);
+
+        ServerInfo info = entry.info;
+        if (Objects.nonNull(info) && System.nanoTime() - entry.fetched < _timeToLive.toNanos())
+            return CompletableFuture.completedFuture(info);
+
+        return refresh(entry);
+    }
+
+    /**
+     * Returns an optional containing the latest known status of the server, regardless of its age.
+     * The status of a server that is not watched is only kept while the server is requested within the time to live.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @return An optional containing the latest known status of the server, if there is one.
+     */
+    public Optional<ServerInfo> getCachedStatus(String host, int port) {
+        return Optional.ofNullable(_entries.get(getKey(host, port))).map(entry -> entry.info);
+    }
+
+    /**
+     * Forgets the cached status of the server, so the next request pings it. Watched servers are still polled.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     */
+    public void invalidate(String host, int port) {
+        Entry entry = _entries.get(getKey(host, port));
+        if (Objects.nonNull(entry))
+            entry.fetched = Long.MIN_VALUE / 2;
+    }
+
+    /**
+     * Starts polling the server at the provided interval. The first poll is spread randomly over the interval,
+     * so watching many servers at once does not ping them all at the same time.
+     * While the server is unreachable the interval is doubled per failed poll, up to ten minutes.
+     *
+     * @param host     The host of the server.
+     * @param port     The port of the server.
+     * @param interval The time between two polls of a reachable server.
+     */
+    public void watch(String host, int port, Duration interval) {
+        Entry entry = getEntry(host, port);
+
+        synchronized (entry) {
+            entry.interval = interval.toMillis();
+            if (Objects.nonNull(entry.poll)) return;
+
+            entry.poll = _scheduler.schedule(() -> poll(entry), ThreadLocalRandom.current().nextLong(Math.max(entry.interval, 1)), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops polling the server, and forgets its cached status.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     */
+    public void unwatch(String host, int port) {
+        Entry entry = _entries.remove(getKey(host, port));
+        if (Objects.isNull(entry)) return;
+
+        synchronized (entry) {
+            if (Objects.nonNull(entry.poll)) entry.poll.cancel(false);
+            entry.poll = null;
+        }
+    }
+
+    /**
+     * Adds a listener that is notified when the player count, version or description of a server changes.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(IServerStatusListener listener) {
+        _listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Removes the listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(IServerStatusListener listener) {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Stops polling all servers.
+     */
+    @Override
+    public void close() {
+        _scheduler.shutdownNow();
+    }
+
+    private CompletableFuture<ServerInfo> refresh(Entry entry) {
+        synchronized (entry) {
+            if (Objects.nonNull(entry.inFlight)) return entry.inFlight;
+
+            CompletableFuture<ServerInfo> ping;
+            try {
+                ping = _pinger.apply(entry.host, entry.port);
+            } catch (RuntimeException exception) {
+                ping = CompletableFuture.failedFuture(exception);
+            }
+
+            CompletableFuture<ServerInfo> result = ping
+                    .thenApply(info -> {
+                        // ServerPingPacket reports failures as null.
+                        if (Objects.isNull(info))
+                            throw new CompletionException(new IOException(String.format("Could not ping %s:%d", entry.host, entry.port)));
+                        return info;
+                    })
+                    .whenComplete((info, throwable) -> update(entry, info));
+
+            // A ping that already completed has updated the entry, and must not be shared anymore.
+            if (!result.isDone()) entry.inFlight = result;
+            return result;
+        }
+    }
+
+    private void update(Entry entry, ServerInfo info) {
+        ServerInfo previous;
+
+        synchronized (entry) {
+            entry.inFlight = null;
+            previous = entry.info;
+
+            if (Objects.isNull(info)) {
+                entry.failures++;
+                return;
+            }
+
+            entry.failures = 0;
+            entry.info = info;
+            entry.fetched = System.nanoTime();
+        }
+
+        if (isChanged(previous, info)) {
+            for (IServerStatusListener listener : _listeners) {
+                try {
+                    listener.onStatusChanged(previous, info);
+                } catch (RuntimeException exception) {
+                    exception.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void poll(Entry entry) {
+        refresh(entry).handle((info, throwable) -> {
+            synchronized (entry) {
+                // The server was unwatched while it was being pinged.
+                if (Objects.isNull(entry.poll) || _scheduler.isShutdown()) return null;
+
+                try {
+                    entry.poll = _scheduler.schedule(() -> poll(entry), getDelay(entry), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException exception) {
+                    entry.poll = null;
+                }
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Returns the time until the next poll: the interval, doubled per consecutive failure, with a random jitter.
+     */
+    private static long getDelay(Entry entry) {
+        long delay = entry.interval << Math.min(entry.failures, MAX_BACKOFF_SHIFT);
+        if (entry.failures > 0)
+            delay = Math.min(delay, Math.max(entry.interval, MAX_BACKOFF.toMillis()));
+
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return Math.max(1, (long) (delay * jitter));
+    }
+
+    private static boolean isChanged(ServerInfo previous, ServerInfo current) {
+        return Objects.isNull(previous)
+                || previous.getPlayerCount() != current.getPlayerCount()
+                || !Objects.equals(previous.getVersion(), current.getVersion())
+                || !Objects.equals(previous.getDescription(), current.getDescription());
+    }
+
+    private Entry getEntry(String host, int port) {
+        evictExpired();
+
+        long now = System.nanoTime();
+        return _entries.compute(getKey(host, port), (key, entry) -> {
+            if (Objects.isNull(entry)) entry = new Entry(host, port);
+            entry.accessed = now;
+            return entry;
+        });
+    }
+
+    /**
+     * Removes the servers that are not watched, not being pinged, and were not requested for longer than the time to live.
+     * Runs at most once per time to live, so the cost is spread over the requests.
+     */
+    private void evictExpired() {
+        long now = System.nanoTime(), timeToLive = _timeToLive.toNanos(), last = _lastEviction.get();
+        if (now - last < timeToLive || !_lastEviction.compareAndSet(last, now)) return;
+
+        for (String key : _entries.keySet()) {
+            _entries.computeIfPresent(key, (ignored, entry) -> {
+                synchronized (entry) {
+                    boolean expired = Objects.isNull(entry.poll) && Objects.isNull(entry.inFlight) && now - entry.accessed > timeToLive;
+                    return expired ? null : entry;
+                }
+            });
+        }
+    }
+
+    private static String getKey(String host, int port) {
+        return host.toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    private static class Entry {
+        private final String host;
+        private final int port;
+
+        private volatile ServerInfo info;
+        private volatile long fetched, accessed;
+        private CompletableFuture<ServerInfo> inFlight;
+        private ScheduledFuture<?> poll;
+        private long interval;
+        private int failures;
+
+        private Entry(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the handshake packet, which switches the connection to the status or login state.
+ */
+public class HandshakePacket implements IPacket {
+
+    public static final int ID = 0x00, STATE_STATUS = 1, STATE_LOGIN = 2;
+    private static final int MAX_HOST_LENGTH = 255;
+
+    private final int _protocolVersion, _port, _nextState;
+    private final String _host;
+
+    public HandshakePacket(int protocolVersion, String host, int port, int nextState) {
+        _protocolVersion = protocolVersion;
+        _host = host;
+        _port = port;
+        _nextState = nextState;
+    }
+
+    /**
+     * Reads the content of a handshake packet, after its id.
+     *
+     * @param buffer The buffer to read from.
+     * @return The handshake packet.
+     * @throws ProtocolException If the packet is malformed.
+     */
+    public static HandshakePacket read(ByteBuffer buffer) throws ProtocolException {
+        int protocolVersion = ProtocolCodec.readVarInt(buffer);
+        String host = ProtocolCodec.readString(buffer, MAX_HOST_LENGTH);
+        int port = Short.toUnsignedInt(buffer.getShort());
+        int nextState = ProtocolCodec.readVarInt(buffer);
+
+        return new HandshakePacket(protocolVersion, host, port, nextState);
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getSize() {
+        return ProtocolCodec.getVarIntSize(_protocolVersion) + ProtocolCodec.getStringSize(_host)
+                + Short.BYTES + ProtocolCodec.getVarIntSize(_nextState);
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        ProtocolCodec.writeVarInt(buffer, _protocolVersion);
+        ProtocolCodec.writeString(buffer, _host);
+        buffer.putShort((short) _port);
+        ProtocolCodec.writeVarInt(buffer, _nextState);
+    }
+
+    public int getProtocolVersion() {
+        return _protocolVersion;
+    }
+
+    public String getHost() {
+        return _host;
+    }
+
+    public int getPort() {
+        return _port;
+    }
+
+    public int getNextState() {
+        return _nextState;
+    }
+}
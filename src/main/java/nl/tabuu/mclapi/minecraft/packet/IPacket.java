@@ -0,0 +1,30 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a packet of the Minecraft protocol, which can be written by the {@link ProtocolCodec}.
+ */
+public interface IPacket {
+
+    /**
+     * Returns the id of the packet.
+     *
+     * @return The id of the packet.
+     */
+    int getId();
+
+    /**
+     * Returns the amount of bytes the content of the packet takes up, excluding its id.
+     *
+     * @return The amount of bytes the content of the packet takes up.
+     */
+    int getSize();
+
+    /**
+     * Writes the content of the packet, excluding its id.
+     *
+     * @param buffer The buffer to write to.
+     */
+    void write(ByteBuffer buffer);
+}
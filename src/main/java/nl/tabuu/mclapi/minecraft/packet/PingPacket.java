@@ -0,0 +1,51 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the ping packet, which the server answers with a pong packet containing the same payload.
+ */
+public class PingPacket implements IPacket {
+
+    public static final int ID = 0x01;
+
+    private final long _payload;
+
+    public PingPacket(long payload) {
+        _payload = payload;
+    }
+
+    /**
+     * Reads the content of a ping packet, after its id.
+     *
+     * @param buffer The buffer to read from.
+     * @return The ping packet.
+     */
+    public static PingPacket read(ByteBuffer buffer) {
+        return new PingPacket(buffer.getLong());
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getSize() {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        buffer.putLong(_payload);
+    }
+
+    /**
+     * Returns the payload of the packet.
+     *
+     * @return The payload of the packet.
+     */
+    public long getPayload() {
+        return _payload;
+    }
+}
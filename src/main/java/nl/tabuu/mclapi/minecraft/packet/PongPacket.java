@@ -0,0 +1,51 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the pong packet, which echoes the payload of a ping packet.
+ */
+public class PongPacket implements IPacket {
+
+    public static final int ID = 0x01;
+
+    private final long _payload;
+
+    public PongPacket(long payload) {
+        _payload = payload;
+    }
+
+    /**
+     * Reads the content of a pong packet, after its id.
+     *
+     * @param buffer The buffer to read from.
+     * @return The pong packet.
+     */
+    public static PongPacket read(ByteBuffer buffer) {
+        return new PongPacket(buffer.getLong());
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getSize() {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        buffer.putLong(_payload);
+    }
+
+    /**
+     * Returns the payload of the packet.
+     *
+     * @return The payload of the packet.
+     */
+    public long getPayload() {
+        return _payload;
+    }
+}
@@ -0,0 +1,290 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import nl.tabuu.mclapi.util.BufferPool;
+
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes and decodes the data types and frames of the Minecraft protocol directly in {@link ByteBuffer}s.
+ * None of the methods allocate intermediate arrays or streams.
+ */
+public final class ProtocolCodec {
+
+    /**
+     * The maximum size of a frame, excluding its length prefix.
+     */
+    public static final int MAX_FRAME_SIZE = (1 << 21) - 1;
+    public static final int MAX_VAR_INT_SIZE = 5, MAX_VAR_LONG_SIZE = 10;
+
+    private static final int SEGMENT_BITS = 0b01111111, CONTINUE_BIT = 0b10000000;
+    private static final BufferPool BUFFER_POOL = new BufferPool(1 << 13, false);
+
+    private ProtocolCodec() {
+
+    }
+
+    /**
+     * Returns the pool of heap buffers used to encode and decode packets.
+     *
+     * @return The pool of heap buffers used to encode and decode packets.
+     */
+    public static BufferPool getBufferPool() {
+        return BUFFER_POOL;
+    }
+
+    /**
+     * Returns the amount of bytes the value takes up as VarInt.
+     *
+     * @param value The value.
+     * @return The amount of bytes the value takes up as VarInt.
+     */
+    public static int getVarIntSize(int value) {
+        // Every byte holds 7 bits, and a negative value always takes up all 5 bytes.
+        return value == 0 ? 1 : (31 - Integer.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+
+    /**
+     * Returns the amount of bytes the value takes up as VarLong.
+     *
+     * @param value The value.
+     * @return The amount of bytes the value takes up as VarLong.
+     */
+    public static int getVarLongSize(long value) {
+        return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+
+    /**
+     * Writes the value as VarInt.
+     *
+     * @param buffer The buffer to write to.
+     * @param value  The value to write.
+     */
+    public static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~SEGMENT_BITS) != 0) {
+            buffer.put((byte) ((value & SEGMENT_BITS) | CONTINUE_BIT));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes the value as VarLong.
+     *
+     * @param buffer The buffer to write to.
+     * @param value  The value to write.
+     */
+    public static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~((long) SEGMENT_BITS)) != 0) {
+            buffer.put((byte) ((value & SEGMENT_BITS) | CONTINUE_BIT));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a VarInt.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value of the VarInt.
+     * @throws ProtocolException        If the VarInt is longer than 5 bytes.
+     * @throws BufferUnderflowException If the buffer ends before the VarInt does.
+     */
+    public static int readVarInt(ByteBuffer buffer) throws ProtocolException {
+        int result = 0;
+        for (int i = 0; i < MAX_VAR_INT_SIZE; i++) {
+            byte read = buffer.get();
+            result |= (read & SEGMENT_BITS) << (7 * i);
+            if ((read & CONTINUE_BIT) == 0) return result;
+        }
+
+        throw new ProtocolException("VarInt is too big");
+    }
+
+    /**
+     * Reads a VarLong.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value of the VarLong.
+     * @throws ProtocolException        If the VarLong is longer than 10 bytes.
+     * @throws BufferUnderflowException If the buffer ends before the VarLong does.
+     */
+    public static long readVarLong(ByteBuffer buffer) throws ProtocolException {
+        long result = 0;
+        for (int i = 0; i < MAX_VAR_LONG_SIZE; i++) {
+            byte read = buffer.get();
+            result |= (long) (read & SEGMENT_BITS) << (7 * i);
+            if ((read & CONTINUE_BIT) == 0) return result;
+        }
+
+        throw new ProtocolException("VarLong is too big");
+    }
+
+    /**
+     * Returns the amount of bytes the string takes up, including its length prefix.
+     *
+     * @param value The string.
+     * @return The amount of bytes the string takes up.
+     */
+    public static int getStringSize(String value) {
+        int length = getUtf8Length(value);
+        return getVarIntSize(length) + length;
+    }
+
+    /**
+     * Writes the string as UTF-8, prefixed with its length in bytes.
+     *
+     * @param buffer The buffer to write to.
+     * @param value  The string to write.
+     */
+    public static void writeString(ByteBuffer buffer, String value) {
+        writeVarInt(buffer, getUtf8Length(value));
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (isSurrogatePair(value, i)) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | codePoint >> 18));
+                    buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | codePoint & 0x3F));
+                } else {
+                    // Lone surrogates are replaced, like the JDK encoder does.
+                    buffer.put((byte) '?');
+                }
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Reads a UTF-8 string prefixed with its length in bytes.
+     *
+     * @param buffer    The buffer to read from.
+     * @param maxLength The maximum amount of characters the string may contain.
+     * @return The string.
+     * @throws ProtocolException        If the string is longer than allowed.
+     * @throws BufferUnderflowException If the buffer ends before the string does.
+     */
+    public static String readString(ByteBuffer buffer, int maxLength) throws ProtocolException {
+        int length = readVarInt(buffer);
+        if (length < 0 || length > maxLength * 3) throw new ProtocolException("Invalid string length " + length);
+        if (length > buffer.remaining()) throw new BufferUnderflowException();
+
+        int start = buffer.position(), limit = buffer.limit();
+        String value = buffer.hasArray()
+                ? new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8)
+                : StandardCharsets.UTF_8.decode(buffer.limit(start + length)).toString();
+        buffer.limit(limit).position(start + length);
+
+        if (value.length() > maxLength) throw new ProtocolException("String is too long");
+        return value;
+    }
+
+    /**
+     * Returns the amount of bytes the packet takes up as frame, including its length prefix.
+     *
+     * @param packet The packet.
+     * @return The amount of bytes the packet takes up as frame.
+     */
+    public static int getFrameSize(IPacket packet) {
+        int length = getVarIntSize(packet.getId()) + packet.getSize();
+        return getVarIntSize(length) + length;
+    }
+
+    /**
+     * Writes the packet as frame: its length, its id and its content.
+     *
+     * @param buffer The buffer to write to.
+     * @param packet The packet to write.
+     */
+    public static void writePacket(ByteBuffer buffer, IPacket packet) {
+        writeVarInt(buffer, getVarIntSize(packet.getId()) + packet.getSize());
+        writeVarInt(buffer, packet.getId());
+        packet.write(buffer);
+    }
+
+    /**
+     * Returns the amount of bytes the frame at the position of the buffer takes up, including its length prefix,
+     * or -1 if the buffer does not contain the complete length prefix yet. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer containing the frame.
+     * @return The amount of bytes the frame takes up, or -1 if its length is not known yet.
+     * @throws ProtocolException If the length of the frame is invalid.
+     */
+    public static int getFrameLength(ByteBuffer buffer) throws ProtocolException {
+        int position = buffer.position(), length = 0;
+
+        for (int i = 0; i < 3; i++) {
+            if (position + i >= buffer.limit()) return -1;
+
+            byte read = buffer.get(position + i);
+            length |= (read & SEGMENT_BITS) << (7 * i);
+            if ((read & CONTINUE_BIT) == 0)
+                return i + 1 + length;
+        }
+
+        throw new ProtocolException("Frame is too large");
+    }
+
+    /**
+     * Reads a frame, and returns a view of its content, starting at the packet id.
+     * Returns null, without changing the position of the buffer, if the buffer does not contain the complete frame yet.
+     *
+     * @param buffer The buffer to read from.
+     * @return A view of the content of the frame, or null if the frame is incomplete.
+     * @throws ProtocolException If the length of the frame is invalid.
+     */
+    public static ByteBuffer readFrame(ByteBuffer buffer) throws ProtocolException {
+        int length = getFrameLength(buffer);
+        if (length < 0 || length > buffer.remaining()) return null;
+
+        int size = readVarInt(buffer);
+        ByteBuffer frame = buffer.slice().limit(size);
+        buffer.position(buffer.position() + size);
+
+        return frame;
+    }
+
+    private static int getUtf8Length(String value) {
+        int length = value.length();
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x800 && Character.isSurrogate(c)) {
+                // A pair of surrogates takes up 4 bytes, a lone surrogate is replaced by a single byte.
+                if (isSurrogatePair(value, i)) {
+                    length += 2;
+                    i++;
+                }
+            } else if (c >= 0x800) {
+                length += 2;
+            } else if (c >= 0x80) {
+                length += 1;
+            }
+        }
+
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+                && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+}
@@ -4,32 +4,40 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import nl.tabuu.mclapi.minecraft.ServerIcon;
 import nl.tabuu.mclapi.minecraft.ServerInfo;
+import nl.tabuu.mclapi.minecraft.ServerLatency;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.ProtocolException;
 import java.net.Socket;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 public class ServerPingPacket {
 
-    private static final int PROTOCOL_VERSION = -1, TIME_OUT = 1_000, HANDSHAKE_ID = 1;
+    private static final int PROTOCOL_VERSION = -1, TIME_OUT = 1_000;
 
-    private final Socket _socket;
     private final InetSocketAddress _address;
 
+    private Socket _socket;
     private DataInputStream _dataInputStream;
     private DataOutputStream _dataOutputStream;
+    private long _received;
 
     public ServerPingPacket(String host, int port) {
         _address = new InetSocketAddress(host, port);
-        _socket = new Socket();
     }
 
     private void connect() throws IOException {
+        _socket = new Socket();
         _socket.setSoTimeout(TIME_OUT);
+        _socket.setTcpNoDelay(true);
         _socket.connect(_address, TIME_OUT);
 
         _dataOutputStream = new DataOutputStream(_socket.getOutputStream());
@@ -40,58 +48,137 @@ public class ServerPingPacket {
         _socket.close();
     }
 
-    private String handshake() throws IOException {
-        ByteArrayOutputStream b = new ByteArrayOutputStream();
-        DataOutputStream handshake = new DataOutputStream(b);
-        handshake.writeByte(0x00);
-
-        writeVarInt(PROTOCOL_VERSION, handshake);
-        writeVarInt(_address.getHostString().length(), handshake);
-        handshake.writeBytes(_address.getHostString());
-        handshake.writeShort(_address.getPort());
-        writeVarInt(HANDSHAKE_ID, handshake);
-        writeVarInt(b.size(), _dataOutputStream);
-        _dataOutputStream.write(b.toByteArray());
+    /**
+     * Sends the packets in a single write.
+     */
+    private void send(ByteBuffer buffer, IPacket... packets) throws IOException {
+        buffer.clear();
+        for (IPacket packet : packets)
+            ProtocolCodec.writePacket(buffer, packet);
 
-        _dataOutputStream.writeByte(0x01);
-        _dataOutputStream.writeByte(0x00);
+        _dataOutputStream.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        _dataOutputStream.flush();
+    }
 
+    /**
+     * Reads the content of the next frame, starting at the packet id. The buffer is used if the frame fits.
+     * The time the length of the frame arrived is stored, so the time to the first byte can be measured.
+     */
+    private ByteBuffer receive(ByteBuffer buffer) throws IOException {
         int size = readVarInt(_dataInputStream);
-        int id = readVarInt(_dataInputStream);
-        if (id == -1) throw new IOException("Premature end of stream");
-        if (id != 0) throw new IOException("Invalid packet id");
-        int length = readVarInt(_dataInputStream);
-        if (length == -1) throw new IOException("Premature end of stream");
-        if (length == 0) throw new IOException("Invalid string length");
-
-        byte[] in = new byte[length];
-        _dataInputStream.readFully(in);
-        return new String(in);
+        _received = System.nanoTime();
+        if (size <= 0 || size > ProtocolCodec.MAX_FRAME_SIZE) throw new ProtocolException("Invalid packet length");
+
+        ByteBuffer frame = size <= buffer.capacity() ? buffer.clear().limit(size) : ByteBuffer.allocate(size);
+        _dataInputStream.readFully(frame.array(), frame.arrayOffset(), size);
+
+        return frame;
+    }
+
+    /**
+     * Sends a ping packet and returns the time until the matching pong packet was received.
+     */
+    private long pingPong(ByteBuffer buffer) throws IOException {
+        long payload = System.nanoTime();
+        send(buffer, new PingPacket(payload));
+
+        ByteBuffer frame = receive(buffer);
+        long roundTrip = System.nanoTime() - payload;
+
+        if (ProtocolCodec.readVarInt(frame) != PongPacket.ID || PongPacket.read(frame).getPayload() != payload)
+            throw new ProtocolException("Invalid pong");
+
+        return roundTrip;
     }
 
     public CompletableFuture<ServerInfo> ping() {
+        return ping(1);
+    }
+
+    /**
+     * Pings the server, and measures the ping/pong round trip time the provided amount of times.
+     * The first sample is taken on the status connection. Because servers close the connection after the pong,
+     * every further sample is taken on a new connection.
+     *
+     * @param samples The amount of round trip times to measure.
+     * @return A future that completes with the server info, or null if the server could not be pinged.
+     */
+    public CompletableFuture<ServerInfo> ping(int samples) {
         return CompletableFuture.supplyAsync(() -> {
+            ByteBuffer buffer = ProtocolCodec.getBufferPool().acquire();
+
             try {
+                long start = System.nanoTime();
                 connect();
-                JsonObject json = JsonParser.parseString(handshake()).getAsJsonObject();
-                disconnect();
-                return fromJson(json);
-            } catch (IOException exception) {
+                long connected = System.nanoTime();
+
+                send(buffer, new HandshakePacket(PROTOCOL_VERSION, _address.getHostString(), _address.getPort(), HandshakePacket.STATE_STATUS), StatusRequestPacket.INSTANCE);
+                long requested = System.nanoTime();
+                ByteBuffer frame = receive(buffer);
+                long firstByte = _received - requested;
+
+                if (ProtocolCodec.readVarInt(frame) != StatusResponsePacket.ID) throw new ProtocolException("Invalid packet id");
+                JsonObject json = JsonParser.parseString(StatusResponsePacket.read(frame).getJson()).getAsJsonObject();
+
+                long[] roundTrips = new long[Math.max(samples, 1)];
+                int measured = 0;
+                try {
+                    roundTrips[measured] = pingPong(buffer);
+                    measured++;
+                    disconnect();
+
+                    while (measured < roundTrips.length) {
+                        connect();
+                        send(buffer, new HandshakePacket(PROTOCOL_VERSION, _address.getHostString(), _address.getPort(), HandshakePacket.STATE_STATUS));
+                        roundTrips[measured] = pingPong(buffer);
+                        measured++;
+                        disconnect();
+                    }
+                } catch (IOException exception) {
+                    // Not every server answers pings, the status is still valid without a round trip time.
+                    disconnect();
+                }
+
+                ServerLatency latency = new ServerLatency(connected - start, firstByte, Arrays.copyOf(roundTrips, measured));
+                return fromJson(_address.getHostString(), _address.getPort(), json, latency);
+            } catch (IOException | BufferUnderflowException exception) {
                 exception.printStackTrace();
+            } finally {
+                ProtocolCodec.getBufferPool().release(buffer);
             }
 
             return null;
         });
     }
 
-    private ServerInfo fromJson(JsonObject json) {
-        String version = json.getAsJsonObject("version").get("name").getAsString();
-        String description = json.getAsJsonObject("description").get("text").getAsString();
-        String iconData;
+    /**
+     * Creates the server info described by the json of a status response.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param json The json of the status response.
+     * @return The server info described by the json.
+     */
+    public static ServerInfo fromJson(String host, int port, JsonObject json) {
+        return fromJson(host, port, json, null);
+    }
 
-        if(json.has("favicon"))
-            iconData = json.get("favicon").getAsString().replaceFirst("data:image/png;base64,", "");
-        else iconData = "";
+    /**
+     * Creates the server info described by the json of a status response.
+     *
+     * @param host    The host of the server.
+     * @param port    The port of the server.
+     * @param json    The json of the status response.
+     * @param latency The latency measured while pinging the server, or null if it was not measured.
+     * @return The server info described by the json.
+     */
+    public static ServerInfo fromJson(String host, int port, JsonObject json, ServerLatency latency) {
+        String version = json.getAsJsonObject("version").get("name").getAsString();
+        JsonElement descriptionElement = json.get("description");
+        String description = descriptionElement.isJsonObject()
+                ? descriptionElement.getAsJsonObject().get("text").getAsString()
+                : descriptionElement.getAsString();
+        ServerIcon icon = json.has("favicon") ? ServerIcon.of(json.get("favicon").getAsString()) : null;
 
         JsonObject players = json.getAsJsonObject("players");
         int maxPlayerCount = players.get("max").getAsInt();
@@ -108,7 +195,7 @@ public class ServerPingPacket {
             }
         }
 
-        return new ServerInfo(_address.getHostString(), description, version, iconData, _address.getPort(), maxPlayerCount, playerCount, profiles);
+        return new ServerInfo(host, description, version, icon, port, maxPlayerCount, playerCount, profiles, latency);
     }
 
     public static int readVarInt(InputStream in) throws IOException {
@@ -118,14 +205,14 @@ public class ServerPingPacket {
         do {
             read = in.read();
             if (read < 0) {
-                throw new RuntimeException("Unexpected end of stream");
+                throw new EOFException("Unexpected end of stream");
             }
             int value = (read & 0b01111111);
             result |= (value << (7 * numRead));
 
             numRead++;
             if (numRead > 5) {
-                throw new RuntimeException("VarInt is too big");
+                throw new ProtocolException("VarInt is too big");
             }
         } while ((read & 0b10000000) != 0);
 
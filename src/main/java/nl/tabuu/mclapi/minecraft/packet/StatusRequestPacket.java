@@ -0,0 +1,31 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the status request packet, which has no content.
+ */
+public class StatusRequestPacket implements IPacket {
+
+    public static final int ID = 0x00;
+    public static final StatusRequestPacket INSTANCE = new StatusRequestPacket();
+
+    private StatusRequestPacket() {
+
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getSize() {
+        return 0;
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+
+    }
+}
@@ -0,0 +1,57 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents the status response packet, which contains the status of the server as json.
+ */
+public class StatusResponsePacket implements IPacket {
+
+    public static final int ID = 0x00;
+    private static final int MAX_JSON_LENGTH = 32767;
+
+    private final String _json;
+
+    public StatusResponsePacket(String json) {
+        _json = json;
+    }
+
+    /**
+     * Reads the content of a status response packet, after its id.
+     *
+     * @param buffer The buffer to read from.
+     * @return The status response packet.
+     * @throws ProtocolException If the packet is malformed.
+     */
+    public static StatusResponsePacket read(ByteBuffer buffer) throws ProtocolException {
+        String json = ProtocolCodec.readString(buffer, MAX_JSON_LENGTH);
+        if (json.isEmpty()) throw new ProtocolException("Empty status response");
+
+        return new StatusResponsePacket(json);
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getSize() {
+        return ProtocolCodec.getStringSize(_json);
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        ProtocolCodec.writeString(buffer, _json);
+    }
+
+    /**
+     * Returns the status of the server as json.
+     *
+     * @return The status of the server as json.
+     */
+    public String getJson() {
+        return _json;
+    }
+}
@@ -0,0 +1,122 @@
+package nl.tabuu.mclapi.mojang;
+
+import nl.tabuu.mclapi.mojang.download.DownloadScheduler;
+import nl.tabuu.mclapi.mojang.json.AssetIndex;
+import nl.tabuu.mclapi.mojang.json.MojangJson;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches asset indexes by their id and sha1-hash. Versions of the same line share their asset index,
+ * e.g.: all 1.16.x versions use asset index "1.16", so it is stored once at "assets/indexes/&lt;id&gt;.json"
+ * and read once per process, no matter how many versions use it.
+ */
+public class AssetIndexCache {
+
+    private static AssetIndexCache DEFAULT;
+
+    private final Map<String, CompletableFuture<AssetIndex>> _indexes;
+
+    public AssetIndexCache() {
+        _indexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the asset index, after making sure it is downloaded to the Minecraft directory.
+     * The index is read from disk only the first time it is requested, later requests share the same index.
+     * Failed downloads and reads are not cached.
+     *
+     * @param index     The asset index to get.
+     * @param root      The Minecraft directory to download the asset index to.
+     * @param scheduler The scheduler to queue the download on.
+     * @return A future that completes with the asset index.
+     */
+    public CompletableFuture<AssetIndex> get(MCAssetPackage.DownloadableAssetIndexWrapper index, File root, DownloadScheduler scheduler) {
+        File file = index.getLocation(root);
+
+        // The download only verifies the file if it is already there, which the store of the scheduler makes cheap.
+        return scheduler.submit(index, file).thenCompose(downloaded -> {
+            if (!downloaded)
+                return CompletableFuture.failedFuture(new IOException(String.format("Could not download asset index %s", index.getId())));
+
+            String key = getKey(index.getId(), index.getHash());
+            CompletableFuture<AssetIndex> created = new CompletableFuture<>();
+            CompletableFuture<AssetIndex> cached = _indexes.putIfAbsent(key, created);
+            if (Objects.nonNull(cached)) return cached;
+
+            scheduler.getExecutor().execute(() -> {
+                try {
+                    created.complete(read(file));
+                } catch (IOException | RuntimeException exception) {
+                    _indexes.remove(key, created);
+                    created.completeExceptionally(exception);
+                }
+            });
+
+            return created;
+        });
+    }
+
+    /**
+     * Returns an optional containing the asset index with the id and sha1-hash, if it was read before.
+     *
+     * @param id   The id of the asset index, e.g.: "1.16".
+     * @param hash The sha1-hash of the asset index.
+     * @return An optional containing the asset index, if it was read before.
+     */
+    public Optional<AssetIndex> getCached(String id, String hash) {
+        CompletableFuture<AssetIndex> index = _indexes.get(getKey(id, hash));
+        if (Objects.isNull(index) || !index.isDone() || index.isCompletedExceptionally())
+            return Optional.empty();
+
+        return Optional.of(index.join());
+    }
+
+    /**
+     * Forgets all asset indexes that were read.
+     */
+    public void clear() {
+        _indexes.clear();
+    }
+
+    private static AssetIndex read(File file) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            AssetIndex index = MojangJson.getGson().fromJson(reader, AssetIndex.class);
+            if (Objects.isNull(index))
+                throw new IOException("Empty asset index " + file);
+
+            return index;
+        }
+    }
+
+    private static String getKey(String id, String hash) {
+        return id + ":" + hash;
+    }
+
+    /**
+     * Returns the cache shared by all asset packages.
+     *
+     * @return The cache shared by all asset packages.
+     */
+    public static synchronized AssetIndexCache getDefault() {
+        if (Objects.isNull(DEFAULT))
+            DEFAULT = new AssetIndexCache();
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the cache shared by all asset packages.
+     *
+     * @param cache The new default cache.
+     */
+    public static synchronized void setDefault(AssetIndexCache cache) {
+        DEFAULT = Objects.requireNonNull(cache);
+    }
+}
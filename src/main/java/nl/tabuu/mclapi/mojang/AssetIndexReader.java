@@ -0,0 +1,121 @@
+package nl.tabuu.mclapi.mojang;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Reads the objects of an asset index one by one, without materializing the whole json tree.
+ */
+public class AssetIndexReader implements Iterator<MCAssetPackage.DownloadableGameAssetWrapper>, Closeable {
+
+    private final JsonReader _reader;
+    private MCAssetPackage.DownloadableGameAssetWrapper _next;
+    private boolean _inObjects, _done;
+
+    /**
+     * Creates a reader for the asset index provided by the reader.
+     *
+     * @param reader The reader providing the asset index json.
+     */
+    public AssetIndexReader(Reader reader) {
+        _reader = new JsonReader(reader);
+    }
+
+    /**
+     * Opens a reader for the asset index file.
+     *
+     * @param file The asset index file.
+     * @return A reader for the asset index file.
+     * @throws IOException If the file could not be opened.
+     */
+    public static AssetIndexReader open(File file) throws IOException {
+        return new AssetIndexReader(new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (Objects.nonNull(_next)) return true;
+        if (_done) return false;
+
+        try {
+            _next = readNext();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return Objects.nonNull(_next);
+    }
+
+    @Override
+    public MCAssetPackage.DownloadableGameAssetWrapper next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        MCAssetPackage.DownloadableGameAssetWrapper next = _next;
+        _next = null;
+        return next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _reader.close();
+    }
+
+    private MCAssetPackage.DownloadableGameAssetWrapper readNext() throws IOException {
+        if (!_inObjects && !seekObjects()) {
+            _done = true;
+            return null;
+        }
+
+        if (!_reader.hasNext()) {
+            _reader.endObject();
+            _done = true;
+            return null;
+        }
+
+        _reader.nextName(); // The asset name, e.g. "minecraft/sounds/ambient/cave/cave1.ogg".
+        _reader.beginObject();
+
+        String hash = null;
+        int size = 0;
+        while (_reader.hasNext()) {
+            switch (_reader.nextName()) {
+                case "hash":
+                    hash = _reader.nextString();
+                    break;
+                case "size":
+                    size = _reader.nextInt();
+                    break;
+                default:
+                    _reader.skipValue();
+            }
+        }
+        _reader.endObject();
+
+        if (Objects.isNull(hash))
+            throw new IOException("Asset index entry without hash at " + _reader.getPath());
+
+        return new MCAssetPackage.DownloadableGameAssetWrapper(hash, size);
+    }
+
+    private boolean seekObjects() throws IOException {
+        _reader.beginObject();
+        while (_reader.hasNext()) {
+            if ("objects".equals(_reader.nextName()) && _reader.peek() == JsonToken.BEGIN_OBJECT) {
+                _reader.beginObject();
+                _inObjects = true;
+                return true;
+            }
+
+            _reader.skipValue();
+        }
+
+        return false;
+    }
+}
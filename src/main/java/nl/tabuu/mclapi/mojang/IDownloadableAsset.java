@@ -1,11 +1,12 @@
 package nl.tabuu.mclapi.mojang;
 
+import nl.tabuu.mclapi.mojang.download.TransferEngine;
 import nl.tabuu.mclapi.util.FileUtil;
 
 import java.io.*;
-import java.net.URL;
-import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents a downloadable asset from the Mojang database.
@@ -33,6 +34,16 @@ public interface IDownloadableAsset {
      */
     int getSize();
 
+    /**
+     * Returns the file this asset is stored at in the provided Minecraft directory.
+     *
+     * @param root The Minecraft directory.
+     * @return The file this asset is stored at, or null if the location of this asset is unknown.
+     */
+    default File getLocation(File root) {
+        return null;
+    }
+
     /**
      * Downloads the asset to the target directory.
      *
@@ -40,36 +51,37 @@ public interface IDownloadableAsset {
      * @return True if the asset downloaded successfully, false otherwise.
      */
     default CompletableFuture<Boolean> download(File target) {
+        return download(target, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Downloads the asset to the target directory on the provided executor.
+     *
+     * @param target   The directory to download the asset to.
+     * @param executor The executor to run the download on.
+     * @return True if the asset downloaded successfully, false otherwise.
+     */
+    default CompletableFuture<Boolean> download(File target, Executor executor) {
         return CompletableFuture.supplyAsync(() -> {
-            if (target.exists()) {
-                String sha1;
+            if (target.isFile() && (getSize() <= 0 || target.length() == getSize())) {
                 try {
-                    sha1 = FileUtil.getSha1(target);
-                } catch (NoSuchAlgorithmException | IOException e) {
+                    if (FileUtil.matchesSha1(target, getHash()))
+                        return true;
+                } catch (IOException e) {
                     e.printStackTrace();
                     return false;
                 }
-
-                if (getHash().equals(sha1))
-                    return true;
             }
 
             System.out.printf("Downloading: %s\n", getUrl());
 
-            target.getParentFile().mkdirs();
-            try (BufferedInputStream in = new BufferedInputStream(new URL(getUrl()).openStream());
-                 FileOutputStream fileOutputStream = new FileOutputStream(target)) {
-                byte[] dataBuffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = in.read(dataBuffer, 0, 1024)) != -1) {
-                    fileOutputStream.write(dataBuffer, 0, bytesRead);
-                }
-
+            try {
+                TransferEngine.getDefault().transfer(getUrl(), target, getHash(), getSize() > 0 ? getSize() : -1);
                 return true;
             } catch (IOException e) {
                 e.printStackTrace();
                 return false;
             }
-        });
+        }, executor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package nl.tabuu.mclapi.mojang;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents everything needed to launch an installed version, resolved at install time.
+ * The plan is stored in the version directory, so launching does not require the version json.
+ * All paths are relative to the Minecraft directory.
+ */
+public class LaunchPlan {
+
+    private static final String FILE_NAME = "launch_plan.json", LAUNCHED_FILE_NAME = ".launched";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([a-zA-Z_]+)}");
+
+    private String version, type, mainClass, assetIndex, natives;
+    private List<String> classpath, jvmArguments, gameArguments;
+
+    protected LaunchPlan(String version, String type, String mainClass, String assetIndex, String natives, List<String> classpath, List<String> jvmArguments, List<String> gameArguments) {
+        this.version = version;
+        this.type = type;
+        this.mainClass = mainClass;
+        this.assetIndex = assetIndex;
+        this.natives = natives;
+        this.classpath = new ArrayList<>(classpath);
+        this.jvmArguments = new ArrayList<>(jvmArguments);
+        this.gameArguments = new ArrayList<>(gameArguments);
+    }
+
+    /**
+     * Creates the launch plan of the asset package.
+     *
+     * @param assetPackage The asset package to create the launch plan of.
+     * @return The launch plan of the asset package.
+     */
+    public static LaunchPlan of(MCAssetPackage assetPackage) {
+        String id = assetPackage.getVersion().getId();
+
+        List<String> classpath = new ArrayList<>();
+        classpath.add(String.format("versions/%s/%s.jar", id, id));
+        for (MCAssetPackage.DownloadableLibraryWrapper library : assetPackage.getLibraries())
+            classpath.add(String.format("libraries/%s", library.getPath()));
+        for (MCAssetPackage.DownloadableLibraryWrapper classifier : assetPackage.getClassifiers())
+            classpath.add(String.format("libraries/%s", classifier.getPath()));
+
+        // Everything that is known at install time is resolved now, the rest depends on the session and directory.
+        Map<String, String> values = Map.of(
+                "version_name", id,
+                "version_type", assetPackage.getVersion().getType(),
+                "assets_index_name", assetPackage.getAssetIndexName());
+
+        return new LaunchPlan(id, assetPackage.getVersion().getType(), assetPackage.getMainClass(),
+                assetPackage.getAssetIndexName(), String.format("versions/%s/natives", id), classpath,
+                resolve(assetPackage.getJvmArguments(), values), resolve(assetPackage.getGameArguments(), values));
+    }
+
+    /**
+     * Returns an optional containing the launch plan of the installed version, if there is one.
+     *
+     * @param root      The Minecraft directory.
+     * @param versionId The id of the installed version.
+     * @return An optional containing the launch plan of the installed version, if there is one.
+     */
+    public static Optional<LaunchPlan> load(File root, String versionId) {
+        File file = getFile(root, versionId);
+        if (!file.isFile()) return Optional.empty();
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            LaunchPlan plan = GSON.fromJson(reader, LaunchPlan.class);
+            // Plans written before the arguments were stored are resolved again.
+            if (Objects.isNull(plan) || Objects.isNull(plan.mainClass) || Objects.isNull(plan.classpath)
+                    || Objects.isNull(plan.jvmArguments) || Objects.isNull(plan.gameArguments))
+                return Optional.empty();
+
+            return Optional.of(plan);
+        } catch (IOException | RuntimeException exception) {
+            exception.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes this launch plan to the version directory.
+     *
+     * @param root The Minecraft directory.
+     * @throws IOException If the plan could not be written.
+     */
+    public void save(File root) throws IOException {
+        File file = getFile(root, version);
+        File temporary = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs())
+            throw new IOException("Failed to create directory " + file.getParentFile());
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8)) {
+            GSON.toJson(this, writer);
+        }
+
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Records that the installed version was launched now, so it is kept over versions that were launched longer ago
+     * when the Minecraft directory is cleaned up.
+     *
+     * @param root      The Minecraft directory.
+     * @param versionId The id of the installed version.
+     * @throws IOException If the launch could not be recorded.
+     */
+    public static void markLaunched(File root, String versionId) throws IOException {
+        File file = new File(root, String.format("versions/%s/%s", versionId, LAUNCHED_FILE_NAME));
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs())
+            throw new IOException("Failed to create directory " + file.getParentFile());
+
+        if (!file.createNewFile() && !file.setLastModified(System.currentTimeMillis()))
+            throw new IOException("Failed to update " + file);
+    }
+
+    /**
+     * Returns the time the installed version was last launched, in milliseconds since the epoch.
+     * Versions that were never launched return the time they were installed, or 0 if that is unknown.
+     *
+     * @param root      The Minecraft directory.
+     * @param versionId The id of the installed version.
+     * @return The time the installed version was last launched.
+     */
+    public static long getLastLaunched(File root, String versionId) {
+        File launched = new File(root, String.format("versions/%s/%s", versionId, LAUNCHED_FILE_NAME));
+        if (launched.isFile()) return launched.lastModified();
+
+        // File#lastModified returns 0 if the file does not exist.
+        return getFile(root, versionId).lastModified();
+    }
+
+    /**
+     * Returns the id of the version this plan launches.
+     *
+     * @return The id of the version this plan launches.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the type of the version this plan launches, e.g.: "snapshot" & "release".
+     *
+     * @return The type of the version this plan launches.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the main class of the game.
+     *
+     * @return The main class of the game.
+     */
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    /**
+     * Returns the name of the asset index the game should use.
+     *
+     * @return The name of the asset index the game should use.
+     */
+    public String getAssetIndex() {
+        return assetIndex;
+    }
+
+    /**
+     * Returns the directory of the extracted native libraries.
+     *
+     * @param root The Minecraft directory.
+     * @return The directory of the extracted native libraries.
+     */
+    public File getNativesDirectory(File root) {
+        return new File(root, natives);
+    }
+
+    /**
+     * Returns the files on the classpath of the game, the client jar first.
+     *
+     * @param root The Minecraft directory.
+     * @return The files on the classpath of the game.
+     */
+    public List<File> getClasspath(File root) {
+        List<File> files = new ArrayList<>(classpath.size());
+        for (String path : classpath)
+            files.add(new File(root, path));
+
+        return files;
+    }
+
+    /**
+     * Returns the arguments of the Java virtual machine, with the placeholders replaced by the provided values.
+     * Placeholders without a value are kept as they are.
+     *
+     * @param values The values of the placeholders, e.g.: "classpath" & "natives_directory".
+     * @return The arguments of the Java virtual machine.
+     */
+    public List<String> getJvmArguments(Map<String, String> values) {
+        return resolve(jvmArguments, values);
+    }
+
+    /**
+     * Returns the arguments of the game, with the placeholders replaced by the provided values.
+     * Placeholders without a value are kept as they are.
+     *
+     * @param values The values of the placeholders, e.g.: "auth_player_name" & "auth_access_token".
+     * @return The arguments of the game.
+     */
+    public List<String> getGameArguments(Map<String, String> values) {
+        return resolve(gameArguments, values);
+    }
+
+    private static List<String> resolve(List<String> arguments, Map<String, String> values) {
+        List<String> resolved = new ArrayList<>(arguments.size());
+
+        for (String argument : arguments) {
+            Matcher matcher = PLACEHOLDER.matcher(argument);
+            StringBuilder builder = new StringBuilder();
+
+            while (matcher.find()) {
+                String value = values.get(matcher.group(1));
+                matcher.appendReplacement(builder, Matcher.quoteReplacement(Objects.isNull(value) ? matcher.group() : value));
+            }
+
+            matcher.appendTail(builder);
+            resolved.add(builder.toString());
+        }
+
+        return resolved;
+    }
+
+    private static File getFile(File root, String versionId) {
+        return new File(root, String.format("versions/%s/%s", versionId, FILE_NAME));
+    }
+}
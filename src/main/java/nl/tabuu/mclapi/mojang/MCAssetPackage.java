@@ -1,40 +1,76 @@
 package nl.tabuu.mclapi.mojang;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.google.gson.stream.JsonReader;
+import nl.tabuu.mclapi.mojang.download.AssetStore;
+import nl.tabuu.mclapi.mojang.download.DownloadScheduler;
+import nl.tabuu.mclapi.mojang.json.AssetIndex;
+import nl.tabuu.mclapi.mojang.json.VersionJson;
+import nl.tabuu.mclapi.mojang.rule.RuleContext;
+import nl.tabuu.mclapi.mojang.rule.RuleSet;
 import nl.tabuu.mclapi.util.FileUtil;
-import nl.tabuu.mclapi.util.HttpRequest;
 import nl.tabuu.mclapi.util.os.OperatingSystem;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class MCAssetPackage {
 
     private static final String
-            RESOURCE_URL = "http://resources.download.minecraft.net/%.2s/%s";
+            RESOURCE_URL = "https://resources.download.minecraft.net/%.2s/%s",
+            DEFAULT_MAIN_CLASS = "net.minecraft.client.main.Main";
+
+    private static final List<String>
+            DEFAULT_JVM_ARGUMENTS = List.of(
+                    "-Djava.library.path=${natives_directory}",
+                    "-Dminecraft.launcher.brand=${launcher_name}",
+                    "-Dminecraft.launcher.version=${launcher_version}",
+                    "-cp", "${classpath}"),
+            DEFAULT_GAME_ARGUMENTS = List.of(
+                    "--username", "${auth_player_name}",
+                    "--version", "${version_name}",
+                    "--gameDir", "${game_directory}",
+                    "--assetsDir", "${assets_root}",
+                    "--assetIndex", "${assets_index_name}",
+                    "--uuid", "${auth_uuid}",
+                    "--accessToken", "${auth_access_token}",
+                    "--userType", "${user_type}",
+                    "--versionType", "${version_type}");
 
     private final IMCVersion _version;
     private final DownloadableAssetWrapper _client;
-    private final DownloadableAssetWrapper _assetIndex;
+    private final DownloadableAssetIndexWrapper _assetIndex;
     private final DownloadableLibraryWrapper[] _libraries;
     private final DownloadableLibraryWrapper[] _classifiers;
+    private final String _mainClass;
+    private final List<String> _jvmArguments, _gameArguments;
 
-    protected MCAssetPackage(IMCVersion version, DownloadableAssetWrapper client, DownloadableAssetWrapper assetIndex, DownloadableLibraryWrapper[] libraries, DownloadableLibraryWrapper[] classifiers) {
+    protected MCAssetPackage(IMCVersion version, DownloadableAssetWrapper client, DownloadableAssetIndexWrapper assetIndex, DownloadableLibraryWrapper[] libraries, DownloadableLibraryWrapper[] classifiers, String mainClass, List<String> jvmArguments, List<String> gameArguments) {
         _version = version;
         _client = client;
         _assetIndex = assetIndex;
         _libraries = libraries;
         _classifiers = classifiers;
+        _mainClass = mainClass;
+        _jvmArguments = new ArrayList<>(jvmArguments);
+        _gameArguments = new ArrayList<>(gameArguments);
+    }
+
+    protected MCAssetPackage(IMCVersion version, DownloadableAssetWrapper client, DownloadableAssetIndexWrapper assetIndex, DownloadableLibraryWrapper[] libraries, DownloadableLibraryWrapper[] classifiers, String mainClass) {
+        this(version, client, assetIndex, libraries, classifiers, mainClass, DEFAULT_JVM_ARGUMENTS, DEFAULT_GAME_ARGUMENTS);
+    }
+
+    protected MCAssetPackage(IMCVersion version, DownloadableAssetWrapper client, DownloadableAssetIndexWrapper assetIndex, DownloadableLibraryWrapper[] libraries, DownloadableLibraryWrapper[] classifiers) {
+        this(version, client, assetIndex, libraries, classifiers, DEFAULT_MAIN_CLASS);
     }
 
     public DownloadableAssetWrapper getClient() {
@@ -53,108 +89,276 @@ public class MCAssetPackage {
         return _classifiers;
     }
 
-    public CompletableFuture<Boolean> download(File target) {
-        File client = new File(target, String.format("/versions/%s/%s.jar", getVersion().getId(), getVersion().getId()));
-        File index = new File(target, String.format("/assets/indexes/%s.json", getVersion().getId()));
+    /**
+     * Returns the asset index of the version.
+     *
+     * @return The asset index of the version.
+     */
+    public DownloadableAssetIndexWrapper getAssetIndex() {
+        return _assetIndex;
+    }
 
-        CompletableFuture<Boolean> download = _client.download(client);
+    /**
+     * Returns the directory the classifiers of the version are extracted to.
+     *
+     * @param root The Minecraft directory.
+     * @return The directory the classifiers of the version are extracted to.
+     */
+    public File getNativesDirectory(File root) {
+        return new File(root, String.format("versions/%s/natives/", getVersion().getId()));
+    }
 
-        // Download libraries
-        for (DownloadableLibraryWrapper library : getLibraries()) {
-            download.thenComposeAsync(downloaded -> {
-                if(!downloaded) return CompletableFuture.completedFuture(false);
-                return library.download(new File(target, String.format("/libraries/%s", library.getPath())));
-            });
+    /**
+     * Extracts the downloaded classifier to the natives directory of the version.
+     *
+     * @param classifier The classifier to extract.
+     * @param root       The Minecraft directory the classifier was downloaded to.
+     * @return True if the classifier was extracted, otherwise false.
+     */
+    public boolean extractClassifier(DownloadableLibraryWrapper classifier, File root) {
+        try {
+            FileUtil.extract(classifier.getLocation(root), getNativesDirectory(root), classifier.getExtractExcludes());
+            return true;
+        } catch (IOException exception) {
+            exception.printStackTrace();
+            return false;
         }
+    }
 
-        // Download native libraries/classifiers
-        for (DownloadableLibraryWrapper library : getClassifiers()) {
-            download.thenComposeAsync(downloaded -> {
-                if(!downloaded) return CompletableFuture.completedFuture(false);
-                return library.download(new File(target, String.format("/libraries/%s", library.getPath())));
-            });
-        }
+    /**
+     * Returns the main class of the game.
+     *
+     * @return The main class of the game.
+     */
+    public String getMainClass() {
+        return _mainClass;
+    }
 
-        // Download asset index
-        download.thenComposeAsync(downloaded -> {
-            if(!downloaded) return CompletableFuture.completedFuture(false);
-            return _assetIndex.download(index);
-        });
+    /**
+     * Returns the arguments of the Java virtual machine, as templates containing placeholders like ${classpath}.
+     *
+     * @return The arguments of the Java virtual machine.
+     */
+    public List<String> getJvmArguments() {
+        return Collections.unmodifiableList(_jvmArguments);
+    }
 
-        FileReader indexReader;
-        try {
-            indexReader = new FileReader(index);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return CompletableFuture.completedFuture(false);
-        }
+    /**
+     * Returns the arguments of the game, as templates containing placeholders like ${auth_player_name}.
+     *
+     * @return The arguments of the game.
+     */
+    public List<String> getGameArguments() {
+        return Collections.unmodifiableList(_gameArguments);
+    }
 
-        Gson gson = new Gson();
-        JsonReader reader = new JsonReader(indexReader);
-        JsonObject object = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonObject("objects");
+    /**
+     * Returns the name of the asset index the game should be launched with, which is the id of the asset index, e.g.: "1.16".
+     *
+     * @return The name of the asset index the game should be launched with.
+     */
+    public String getAssetIndexName() {
+        return _assetIndex.getId();
+    }
 
-        // Downloading all assets from the asset index
-        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
-            DownloadableGameAssetWrapper gameAsset = gson.fromJson(entry.getValue(), DownloadableGameAssetWrapper.class);
-            File asset = new File(target, String.format("/assets/objects/%.2s/%s", gameAsset.getHash(), gameAsset.getHash()));
+    public CompletableFuture<Boolean> download(File target) {
+        DownloadScheduler scheduler = new DownloadScheduler();
+        scheduler.setStore(AssetStore.open(target));
+        return download(target, scheduler);
+    }
 
-            download.thenComposeAsync(downloaded -> {
-                if(!downloaded) return CompletableFuture.completedFuture(false);
-                return gameAsset.download(asset);
-            });
-        }
+    /**
+     * Downloads the client, libraries, classifiers, asset index and all assets using the provided scheduler.
+     * The aggregate throughput is available through {@link DownloadScheduler#getReport()}.
+     * If the scheduler has an {@link AssetStore}, its verification index is saved once all downloads are done.
+     * Once everything downloaded successfully, the {@link LaunchPlan} of the version is written.
+     *
+     * @param target    The Minecraft directory to download to.
+     * @param scheduler The scheduler to queue the downloads on.
+     * @return A future that completes once every download finished, with true if all of them succeeded.
+     */
+    public CompletableFuture<Boolean> download(File target, DownloadScheduler scheduler) {
+        List<CompletableFuture<Boolean>> downloads = new ArrayList<>();
+        downloads.add(scheduler.submit(_client, _client.getLocation(target)));
+
+        // Download libraries
+        for (DownloadableLibraryWrapper library : getLibraries())
+            downloads.add(scheduler.submit(library, library.getLocation(target)));
 
-        // Extracting native files from the classifier libraries
+        // Download native libraries/classifiers, and extract each one as soon as it is downloaded
         for (DownloadableLibraryWrapper classifier : getClassifiers()) {
-            File file = new File(target, String.format("/libraries/%s", classifier.getPath()));
-            File destination = new File(target, String.format("/versions/%s/natives/", getVersion().getId()));
-            try {
-                FileUtil.unzip(file, destination);
-            } catch (IOException exception) {
+            downloads.add(scheduler.submit(classifier, classifier.getLocation(target))
+                    .thenApplyAsync(downloaded -> downloaded && extractClassifier(classifier, target), scheduler.getExecutor()));
+        }
+
+        // Download asset index, and all assets from the asset index. The index is shared with the other versions of the same line.
+        downloads.add(scheduler.submit(_assetIndex, _assetIndex.getLocation(target)).thenCompose(downloaded -> {
+            if (!downloaded) return CompletableFuture.completedFuture(false);
+
+            // An index that another version already read is not read again.
+            Optional<AssetIndex> cached = AssetIndexCache.getDefault().getCached(_assetIndex.getId(), _assetIndex.getHash());
+            if (cached.isPresent()) {
+                return submitAssets(cached.get().getObjects().stream()
+                        .map(asset -> new DownloadableGameAssetWrapper(asset.getHash(), asset.getSize()))
+                        .iterator(), target, scheduler);
+            }
+
+            // Assets are queued while the index is still being read, so downloading starts right away.
+            try (AssetIndexReader reader = AssetIndexReader.open(_assetIndex.getLocation(target))) {
+                return submitAssets(reader, target, scheduler);
+            } catch (IOException | UncheckedIOException exception) {
                 exception.printStackTrace();
                 return CompletableFuture.completedFuture(false);
             }
+        }));
+
+        return DownloadScheduler.all(downloads).thenApply(downloaded -> {
+            scheduler.getStore().ifPresent(store -> {
+                try {
+                    store.save();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            });
+
+            if (downloaded) {
+                try {
+                    LaunchPlan.of(this).save(target);
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            }
+
+            return downloaded;
+        });
+    }
+
+    /**
+     * Queues the download of every asset with a hash that was not queued before, since assets with the same content are stored once.
+     */
+    private static CompletableFuture<Boolean> submitAssets(Iterator<DownloadableGameAssetWrapper> assets, File target, DownloadScheduler scheduler) {
+        List<CompletableFuture<Boolean>> downloads = new ArrayList<>();
+        Set<String> hashes = new HashSet<>();
+
+        while (assets.hasNext()) {
+            DownloadableGameAssetWrapper asset = assets.next();
+            if (hashes.add(asset.getHash()))
+                downloads.add(scheduler.submit(asset, asset.getLocation(target)));
         }
 
-        return download;
+        return DownloadScheduler.all(downloads);
     }
 
+    /**
+     * Returns the asset package of the version, based on its version json.
+     * The version json is served from the {@link MetadataCache} while the cached copy is valid.
+     *
+     * @param version The version to get the asset package of.
+     * @return The asset package of the version.
+     */
     public static CompletableFuture<MCAssetPackage> fromVersion(IMCVersion version) {
-        return HttpRequest.doJsonBodyRequest(version.getAssetManifestUrl(), "GET").thenApply(manifest -> {
-            Gson gson = new Gson();
-            DownloadableAssetWrapper client = gson.fromJson(manifest.getAsJsonObject("downloads").get("client"), DownloadableAssetWrapper.class);
-            DownloadableAssetWrapper assetIndex = gson.fromJson(manifest.get("assetIndex"), DownloadableAssetWrapper.class);
-
-            List<JsonElement> manifestEntries = new LinkedList<>();
-            manifest.getAsJsonArray("libraries").forEach(manifestEntries::add);
-
-            List<JsonObject> downloads = manifestEntries.stream()
-                    .map(JsonElement::getAsJsonObject)
-                    .map(element -> element.getAsJsonObject("downloads"))
-                    .collect(Collectors.toList());
-
-            DownloadableLibraryWrapper[] libraries = downloads.stream()
-                    .map(element -> element.getAsJsonObject("artifact"))
-                    .map(element -> gson.fromJson(element, DownloadableLibraryWrapper.class))
-                    .toArray(DownloadableLibraryWrapper[]::new);
-
-            String nativeId = String.format("natives-%s", OperatingSystem.getCurrent().getMinecraftId());
-            DownloadableLibraryWrapper[] classifiers = downloads.stream()
-                    .filter(element -> element.has("classifiers"))
-                    .map(element -> element.getAsJsonObject("classifiers"))
-                    .filter(element -> element.has(nativeId))
-                    .map(element -> element.getAsJsonObject(nativeId))
-                    .map(element -> gson.fromJson(element, DownloadableLibraryWrapper.class))
-                    .toArray(DownloadableLibraryWrapper[]::new);
-
-            return new MCAssetPackage(version, client, assetIndex, libraries, classifiers);
+        return fromVersion(version, MetadataCache.getDefault());
+    }
+
+    /**
+     * Returns the asset package of the version, based on its version json.
+     * The version json is served from the provided cache while the cached copy is valid.
+     *
+     * @param version The version to get the asset package of.
+     * @param cache   The cache to fetch the version json with.
+     * @return The asset package of the version.
+     */
+    public static CompletableFuture<MCAssetPackage> fromVersion(IMCVersion version, MetadataCache cache) {
+        return fromVersion(version, cache, RuleContext.getCurrent());
+    }
+
+    /**
+     * Returns the asset package of the version, based on its version json. Only the libraries and arguments of which
+     * the rules allow them in the provided context are included.
+     * The version json is served from the provided cache while the cached copy is valid.
+     *
+     * @param version The version to get the asset package of.
+     * @param cache   The cache to fetch the version json with.
+     * @param context The operating system and features to evaluate the rules of the version json against.
+     * @return The asset package of the version.
+     */
+    public static CompletableFuture<MCAssetPackage> fromVersion(IMCVersion version, MetadataCache cache, RuleContext context) {
+        return cache.get(version.getAssetManifestUrl(), VersionJson.class).thenApply(manifest -> {
+            if (Objects.isNull(manifest.getClient()) || Objects.isNull(manifest.getAssetIndex()))
+                throw new IllegalStateException(String.format("The version json of %s has no client or asset index", version.getId()));
+
+            DownloadableAssetWrapper client = new DownloadableAssetWrapper(manifest.getClient(),
+                    String.format("versions/%s/%s.jar", version.getId(), version.getId()));
+            // Versions without an asset index id predate the shared indexes, and use the "assets" field or their own id.
+            String assetIndexId = Objects.requireNonNullElse(manifest.getAssetIndex().getId(),
+                    Objects.requireNonNullElse(manifest.getAssets(), version.getId()));
+            DownloadableAssetIndexWrapper assetIndex = new DownloadableAssetIndexWrapper(manifest.getAssetIndex(), assetIndexId);
+
+            OperatingSystem system = context.getOperatingSystem();
+            List<DownloadableLibraryWrapper> libraries = new ArrayList<>(), classifiers = new ArrayList<>();
+            for (VersionJson.Library library : manifest.getLibraries()) {
+                // Libraries meant for other operating systems are neither downloaded nor put on the classpath.
+                if (!RuleSet.compile(library.getRules()).conforms(context)) continue;
+
+                if (Objects.nonNull(library.getArtifact()))
+                    libraries.add(new DownloadableLibraryWrapper(library.getArtifact(), Collections.emptyList()));
+
+                VersionJson.Download classifier = library.getClassifiers().get(getNativeId(library, system));
+                if (Objects.nonNull(classifier))
+                    classifiers.add(new DownloadableLibraryWrapper(classifier, library.getExtractExcludes()));
+            }
+
+            String mainClass = Objects.isNull(manifest.getMainClass()) ? DEFAULT_MAIN_CLASS : manifest.getMainClass();
+
+            List<String> jvmArguments = DEFAULT_JVM_ARGUMENTS, gameArguments = DEFAULT_GAME_ARGUMENTS;
+            if (Objects.nonNull(manifest.getJvmArguments()) || Objects.nonNull(manifest.getGameArguments())) {
+                if (Objects.nonNull(manifest.getJvmArguments())) jvmArguments = getArguments(manifest.getJvmArguments(), context);
+                if (Objects.nonNull(manifest.getGameArguments())) gameArguments = getArguments(manifest.getGameArguments(), context);
+            } else if (Objects.nonNull(manifest.getMinecraftArguments())) {
+                gameArguments = Arrays.asList(manifest.getMinecraftArguments().trim().split("\\s+"));
+            }
+
+            return new MCAssetPackage(version, client, assetIndex,
+                    libraries.toArray(DownloadableLibraryWrapper[]::new), classifiers.toArray(DownloadableLibraryWrapper[]::new),
+                    mainClass, jvmArguments, gameArguments);
         });
     }
 
+    /**
+     * Returns the arguments of the argument list of which the rules allow them in the context.
+     */
+    private static List<String> getArguments(List<VersionJson.Argument> list, RuleContext context) {
+        List<String> arguments = new ArrayList<>();
+        for (VersionJson.Argument argument : list) {
+            if (RuleSet.compile(argument.getRules()).conforms(context))
+                arguments.addAll(argument.getValues());
+        }
+
+        return arguments;
+    }
+
+    /**
+     * Returns the name of the classifier with the natives of the library for the operating system, e.g.: "natives-windows-64".
+     * Libraries that do not list their natives per operating system use "natives-" followed by the id of the operating system.
+     */
+    private static String getNativeId(VersionJson.Library library, OperatingSystem system) {
+        String nativeId = library.getNatives().get(system.getMinecraftId());
+        if (Objects.isNull(nativeId))
+            return String.format("natives-%s", system.getMinecraftId());
+
+        String architecture = Objects.toString(system.getArchitecture(), "");
+        return nativeId.replace("${arch}", architecture.contains("64") ? "64" : "32");
+    }
+
     public static class DownloadableGameAssetWrapper implements IDownloadableAsset {
         private String hash;
         private int size;
 
+        public DownloadableGameAssetWrapper(String hash, int size) {
+            this.hash = hash;
+            this.size = size;
+        }
+
         @Override
         public String getUrl() {
             return String.format(RESOURCE_URL, getHash(), getHash());
@@ -169,11 +373,27 @@ public class MCAssetPackage {
         public int getSize() {
             return size;
         }
+
+        @Override
+        public File getLocation(File root) {
+            return new File(root, String.format("assets/objects/%.2s/%s", getHash(), getHash()));
+        }
     }
 
     public static class DownloadableAssetWrapper implements IDownloadableAsset {
         private String sha1, url;
         private int size;
+        private transient String location;
+
+        public DownloadableAssetWrapper() {
+        }
+
+        protected DownloadableAssetWrapper(VersionJson.Download download, String location) {
+            this.sha1 = download.getSha1();
+            this.url = download.getUrl();
+            this.size = download.getSize();
+            this.location = location;
+        }
 
         @Override
         public String getUrl() {
@@ -189,14 +409,71 @@ public class MCAssetPackage {
         public int getSize() {
             return size;
         }
+
+        @Override
+        public File getLocation(File root) {
+            return Objects.isNull(location) ? null : new File(root, location);
+        }
+
+        protected void setLocation(String location) {
+            this.location = location;
+        }
+    }
+
+    public static class DownloadableAssetIndexWrapper extends DownloadableAssetWrapper {
+        private String id;
+
+        public DownloadableAssetIndexWrapper() {
+        }
+
+        protected DownloadableAssetIndexWrapper(VersionJson.Download download, String id) {
+            super(download, String.format("assets/indexes/%s.json", id));
+            this.id = id;
+        }
+
+        /**
+         * Returns the id of the asset index, e.g.: "1.16".
+         *
+         * @return The id of the asset index.
+         */
+        public String getId() {
+            return id;
+        }
     }
 
     public static class DownloadableLibraryWrapper extends DownloadableAssetWrapper {
         private String path;
-        private Map<String, DownloadableLibraryWrapper> classifiers;
+        private transient List<String> extractExcludes;
+
+        public DownloadableLibraryWrapper() {
+        }
+
+        protected DownloadableLibraryWrapper(VersionJson.Download download, List<String> extractExcludes) {
+            super(download, null);
+            this.path = download.getPath();
+            this.extractExcludes = extractExcludes;
+        }
 
         public String getPath() {
             return path;
         }
+
+        /**
+         * Returns the name prefixes of the entries that should not be extracted from this (native) library.
+         *
+         * @return The name prefixes of the entries that should not be extracted from this library.
+         */
+        public List<String> getExtractExcludes() {
+            return Objects.isNull(extractExcludes) ? Collections.emptyList() : extractExcludes;
+        }
+
+        protected void setExtractExcludes(List<String> extractExcludes) {
+            this.extractExcludes = extractExcludes;
+        }
+
+        @Override
+        public File getLocation(File root) {
+            return new File(root, String.format("libraries/%s", getPath()));
+        }
     }
 }
\ No newline at end of file
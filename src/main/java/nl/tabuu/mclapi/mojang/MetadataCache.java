@@ -0,0 +1,318 @@
+package nl.tabuu.mclapi.mojang;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import nl.tabuu.mclapi.mojang.json.MojangJson;
+import nl.tabuu.mclapi.util.FileUtil;
+import nl.tabuu.mclapi.util.JsonHttpClient;
+import nl.tabuu.mclapi.util.os.OperatingSystem;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the json metadata of the Mojang database (the version manifest and the version json files) on disk.
+ * Cached files are revalidated with conditional requests (ETag/Last-Modified) once they are older than the time to live.
+ * Files of which the url contains their sha1-hash never change, and are never revalidated.
+ */
+public class MetadataCache {
+
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10), REQUEST_TIME_OUT = Duration.ofSeconds(30);
+    private static final Pattern IMMUTABLE_URL = Pattern.compile(".*/[0-9a-f]{40}/[^/]+$");
+    private static final String
+            KEY_URL = "url",
+            KEY_ETAG = "etag",
+            KEY_LAST_MODIFIED = "last-modified",
+            KEY_FETCHED = "fetched";
+
+    private static MetadataCache DEFAULT;
+
+    private final File _directory;
+    private final HttpClient _client;
+    private final Map<String, CompletableFuture<Snapshot>> _snapshots;
+    private volatile Duration _timeToLive;
+    private volatile boolean _offline;
+
+    /**
+     * Creates a metadata cache that stores its files in the provided directory.
+     *
+     * @param directory The directory to store the cached files in.
+     * @param client    The client to fetch the metadata with.
+     */
+    public MetadataCache(File directory, HttpClient client) {
+        _directory = directory;
+        _client = Objects.requireNonNull(client);
+        _snapshots = new ConcurrentHashMap<>();
+        _timeToLive = DEFAULT_TIME_TO_LIVE;
+    }
+
+    public MetadataCache(File directory) {
+        this(directory, JsonHttpClient.getDefault().getClient());
+    }
+
+    /**
+     * Returns the time a cached file is used without revalidating it.
+     *
+     * @return The time a cached file is used without revalidating it.
+     */
+    public Duration getTimeToLive() {
+        return _timeToLive;
+    }
+
+    /**
+     * Sets the time a cached file is used without revalidating it.
+     *
+     * @param timeToLive The time a cached file is used without revalidating it.
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        _timeToLive = Objects.requireNonNull(timeToLive);
+    }
+
+    /**
+     * Returns true if this cache never uses the network, otherwise false.
+     *
+     * @return True if this cache never uses the network, otherwise false.
+     */
+    public boolean isOffline() {
+        return _offline;
+    }
+
+    /**
+     * Sets whether this cache should never use the network. In offline mode only cached files are served.
+     *
+     * @param offline True to never use the network, otherwise false.
+     */
+    public void setOffline(boolean offline) {
+        _offline = offline;
+    }
+
+    /**
+     * Returns the json document at the url, from memory or disk if the cached copy is still valid.
+     * If the document cannot be fetched but a stale copy is cached, the stale copy is returned.
+     *
+     * @param url The url of the json document.
+     * @return The json document at the url.
+     */
+    public CompletableFuture<JsonObject> get(String url) {
+        return get(url, JsonObject.class);
+    }
+
+    /**
+     * Returns the json document at the url, read into the provided type with {@link MojangJson#getGson()},
+     * from memory or disk if the cached copy is still valid. Every cached copy is read into each type at most once.
+     * If the document cannot be fetched but a stale copy is cached, the stale copy is returned.
+     *
+     * @param url  The url of the json document.
+     * @param type The type to read the json document into, e.g.: {@link nl.tabuu.mclapi.mojang.json.VersionJson}.
+     * @param <T>  The type to read the json document into.
+     * @return The json document at the url, read into the provided type.
+     */
+    public <T> CompletableFuture<T> get(String url, Class<T> type) {
+        CompletableFuture<Snapshot> snapshot = _snapshots.compute(url, (key, current) -> {
+            if (Objects.isNull(current) || current.isCompletedExceptionally())
+                return load(key);
+
+            // Requests for a document that is still being loaded share the same future. In offline mode the copy on disk
+            // is never revalidated, so it is not read again either.
+            if (current.isDone() && !_offline && !isFresh(key, current.join().fetched))
+                return load(key);
+
+            return current;
+        });
+
+        return snapshot.thenApply(current -> current.get(type));
+    }
+
+    /**
+     * Forgets all cached documents in memory. The files on disk are kept.
+     */
+    public void clearMemory() {
+        _snapshots.clear();
+    }
+
+    private CompletableFuture<Snapshot> load(String url) {
+        // This is called while the snapshot map is locked, so all disk access happens inside the future.
+        return CompletableFuture.supplyAsync(() -> readProperties(getMetaFile(url)))
+                .thenCompose(properties -> load(url, properties));
+    }
+
+    private CompletableFuture<Snapshot> load(String url, Properties properties) {
+        File raw = getRawFile(url), meta = getMetaFile(url);
+        long fetched = getFetched(properties);
+
+        if (raw.isFile() && (_offline || isFresh(url, fetched)))
+            return CompletableFuture.completedFuture(new Snapshot(raw, fetched));
+
+        if (_offline)
+            return CompletableFuture.failedFuture(new FileNotFoundException("No cached copy of " + url + " in offline mode"));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIME_OUT)
+                .header("Accept", "application/json")
+                .GET();
+
+        if (raw.isFile()) {
+            String etag = properties.getProperty(KEY_ETAG), lastModified = properties.getProperty(KEY_LAST_MODIFIED);
+            if (Objects.nonNull(etag)) builder.header("If-None-Match", etag);
+            if (Objects.nonNull(lastModified)) builder.header("If-Modified-Since", lastModified);
+        }
+
+        Path temporary = new File(_directory, raw.getName() + ".tmp").toPath();
+        _directory.mkdirs();
+        return _client.sendAsync(builder.build(), info -> info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.ofFile(temporary)
+                        : HttpResponse.BodySubscribers.replacing(null))
+                .thenApply(response -> {
+                    long now = System.currentTimeMillis();
+
+                    if (response.statusCode() == 200) {
+                        move(temporary, raw.toPath());
+                        properties.setProperty(KEY_URL, url);
+                        response.headers().firstValue("ETag").ifPresentOrElse(
+                                etag -> properties.setProperty(KEY_ETAG, etag), () -> properties.remove(KEY_ETAG));
+                        response.headers().firstValue("Last-Modified").ifPresentOrElse(
+                                date -> properties.setProperty(KEY_LAST_MODIFIED, date), () -> properties.remove(KEY_LAST_MODIFIED));
+                    } else if (response.statusCode() != 304 || !raw.isFile()) {
+                        throw new IllegalStateException(String.format("Could not fetch %s (status %d)", url, response.statusCode()));
+                    }
+
+                    properties.setProperty(KEY_FETCHED, Long.toString(now));
+                    writeProperties(meta, properties);
+                    return new Snapshot(raw, now);
+                })
+                .exceptionally(throwable -> {
+                    // Serving a stale copy beats failing when the network is down.
+                    if (!raw.isFile())
+                        throw throwable instanceof CompletionException ? (CompletionException) throwable : new CompletionException(throwable);
+
+                    return new Snapshot(raw, fetched);
+                });
+    }
+
+    private static long getFetched(Properties properties) {
+        try {
+            return Long.parseLong(properties.getProperty(KEY_FETCHED, "0"));
+        } catch (NumberFormatException exception) {
+            // A corrupt value only means the cached copy is revalidated.
+            return 0;
+        }
+    }
+
+    private boolean isFresh(String url, long fetched) {
+        if (IMMUTABLE_URL.matcher(url).matches() && fetched > 0) return true;
+        return System.currentTimeMillis() - fetched < _timeToLive.toMillis();
+    }
+
+    private File getRawFile(String url) {
+        return new File(_directory, getKey(url) + ".json");
+    }
+
+    private File getMetaFile(String url) {
+        return new File(_directory, getKey(url) + ".properties");
+    }
+
+    private static String getKey(String url) {
+        return FileUtil.toHex(FileUtil.createSha1Digest().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static <T> T parse(File file, Class<T> type) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            T document = MojangJson.getGson().fromJson(reader, type);
+            if (Objects.isNull(document))
+                throw new JsonParseException("Empty json document " + file);
+
+            return document;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static Properties readProperties(File file) {
+        Properties properties = new Properties();
+        if (!file.isFile()) return properties;
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        return properties;
+    }
+
+    private static void writeProperties(File file, Properties properties) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void move(Path source, Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Returns the cache shared by the version manifest and asset packages, stored in the Minecraft directory.
+     *
+     * @return The cache shared by the version manifest and asset packages.
+     */
+    public static synchronized MetadataCache getDefault() {
+        if (Objects.isNull(DEFAULT))
+            DEFAULT = new MetadataCache(new File(OperatingSystem.getCurrent().getMinecraftDirectory(), ".mclapi/metadata"));
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the cache shared by the version manifest and asset packages.
+     *
+     * @param cache The new default cache.
+     */
+    public static synchronized void setDefault(MetadataCache cache) {
+        DEFAULT = Objects.requireNonNull(cache);
+    }
+
+    private static class Snapshot {
+        private final File raw;
+        private final long fetched;
+        private final Map<Class<?>, Object> documents;
+
+        private Snapshot(File raw, long fetched) {
+            this.raw = raw;
+            this.fetched = fetched;
+            this.documents = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Returns the cached copy read into the type. Concurrent calls for the same type wait for a single read.
+         */
+        private <T> T get(Class<T> type) {
+            return type.cast(documents.computeIfAbsent(type, key -> parse(raw, type)));
+        }
+    }
+}
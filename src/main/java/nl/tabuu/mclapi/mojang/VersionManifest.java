@@ -1,13 +1,12 @@
 package nl.tabuu.mclapi.mojang;
 
-import com.google.gson.Gson;
-import nl.tabuu.mclapi.util.HttpRequest;
+import nl.tabuu.mclapi.mojang.json.VersionManifestJson;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,22 +27,43 @@ public class VersionManifest {
         return Collections.unmodifiableMap(_versions);
     }
 
-    public static CompletableFuture<VersionManifest> get(String manifestUrl) {
-        return HttpRequest.doJsonBodyRequest(manifestUrl, "GET")
-                .thenApply(response -> {
-                    Gson gson = new Gson();
-                    return gson.fromJson(response.get("versions"), MCVersionWrapper[].class);
-                })
-                .thenApply(versions -> Arrays.stream(versions).collect(Collectors.toMap(IMCVersion::getId, v -> v)))
+    /**
+     * Returns the version manifest at the url, served from the provided cache while the cached copy is valid.
+     *
+     * @param manifestUrl The url of the version manifest.
+     * @param cache       The cache to fetch the version manifest with.
+     * @return The version manifest at the url.
+     */
+    public static CompletableFuture<VersionManifest> get(String manifestUrl, MetadataCache cache) {
+        return cache.get(manifestUrl, VersionManifestJson.class)
+                .thenApply(manifest -> manifest.getVersions().stream()
+                        .map(version -> new MCVersionWrapper(version.getId(), version.getType(), version.getUrl()))
+                        .collect(Collectors.toMap(IMCVersion::getId, Function.identity(), (first, second) -> first)))
                 .thenApply(VersionManifest::new);
     }
 
+    /**
+     * Returns the version manifest at the url, served from the {@link MetadataCache} while the cached copy is valid.
+     *
+     * @param manifestUrl The url of the version manifest.
+     * @return The version manifest at the url.
+     */
+    public static CompletableFuture<VersionManifest> get(String manifestUrl) {
+        return get(manifestUrl, MetadataCache.getDefault());
+    }
+
     public static CompletableFuture<VersionManifest> get() {
         return get(MOJANG_VERSION_MANIFEST_URL);
     }
 
     public static class MCVersionWrapper implements IMCVersion {
-        private String id, type, url;
+        private final String id, type, url;
+
+        public MCVersionWrapper(String id, String type, String url) {
+            this.id = id;
+            this.type = type;
+            this.url = url;
+        }
 
         @Override
         public String getId() {
@@ -0,0 +1,442 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.*;
+import nl.tabuu.mclapi.mojang.json.AssetIndex;
+import nl.tabuu.mclapi.mojang.json.MojangJson;
+import nl.tabuu.mclapi.mojang.json.VersionJson;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes the files from the shared directories of a Minecraft directory ("assets/objects", "assets/indexes" and "libraries")
+ * that none of the installed versions reference anymore. Every file the client jars, libraries, classifiers, asset indexes
+ * and assets of the installed versions resolve to is marked, the remaining files are swept in parallel.
+ * Every directory in "versions" is a root, including versions that were not passed to the collector, e.g.: modded versions
+ * that are not in the version manifest. Their files are read from their launch plan and version json instead.
+ * With a size budget, the least recently launched versions are removed until the files of the remaining versions fit.
+ * The collector should not run while versions are installed to the same directory.
+ */
+public class AssetCollector {
+
+    private static final List<String> SWEPT_DIRECTORIES = List.of("assets/objects", "assets/indexes", "libraries");
+    private static final int SWEEP_BATCH_SIZE = 256;
+
+    private final File _root;
+    private final DownloadScheduler _scheduler;
+
+    /**
+     * Creates a collector for the Minecraft directory.
+     *
+     * @param root      The Minecraft directory.
+     * @param scheduler The scheduler the asset indexes are verified with, the sweep runs on its executor.
+     */
+    public AssetCollector(File root, DownloadScheduler scheduler) {
+        _root = root;
+        _scheduler = scheduler;
+    }
+
+    /**
+     * Removes the files that none of the installed versions reference.
+     *
+     * @param installed The asset packages of the installed versions.
+     * @param dryRun    True to only report the files that would be removed.
+     * @return A future that completes with the report of the collection.
+     */
+    public CompletableFuture<Report> collect(Collection<MCAssetPackage> installed, boolean dryRun) {
+        return collect(installed, Long.MAX_VALUE, dryRun);
+    }
+
+    /**
+     * Removes the files that none of the installed versions reference. If the files of the installed versions take more
+     * than the budget, the least recently launched versions are removed as well, until the files of the remaining versions fit.
+     * Version directories without an asset package are kept, and so are the files their launch plan and version json refer to.
+     * If an asset index of an installed version cannot be read, or a version directory has neither an asset package,
+     * a launch plan nor a version json, nothing is removed and the future completes exceptionally.
+     *
+     * @param installed The asset packages of the installed versions.
+     * @param budget    The amount of bytes the files of the remaining versions may take.
+     * @param dryRun    True to only report the files and versions that would be removed.
+     * @return A future that completes with the report of the collection.
+     */
+    public CompletableFuture<Report> collect(Collection<MCAssetPackage> installed, long budget, boolean dryRun) {
+        List<MCAssetPackage> packages = new ArrayList<>(installed);
+        List<CompletableFuture<AssetIndex>> indexes = packages.stream()
+                .map(assetPackage -> AssetIndexCache.getDefault().get(assetPackage.getAssetIndex(), _root, _scheduler))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(indexes.toArray(CompletableFuture[]::new)).thenComposeAsync(ignored -> {
+            Map<Path, Long> files = walk();
+
+            // Every file is counted once per version that references it, so removing a version only has to visit its own files.
+            Map<Path, Integer> references = new HashMap<>();
+            Map<String, Set<Path>> marked = new LinkedHashMap<>();
+            for (int i = 0; i < packages.size(); i++) {
+                Set<Path> paths = mark(packages.get(i), indexes.get(i).join());
+                marked.put(packages.get(i).getVersion().getId(), paths);
+                paths.forEach(path -> references.merge(path, 1, Integer::sum));
+            }
+
+            // Versions without an asset package are never evicted, since too little is known about them,
+            // and neither are the versions they are based on.
+            Set<String> pinned = new HashSet<>();
+            markUnlisted(marked.keySet(), pinned).forEach(path -> references.merge(path, 1, Integer::sum));
+
+            long live = references.keySet().stream().mapToLong(path -> files.getOrDefault(path, 0L)).sum();
+
+            List<String> evicted = new ArrayList<>();
+            List<String> candidates = marked.keySet().stream()
+                    .filter(id -> !pinned.contains(id))
+                    .sorted(Comparator.comparingLong(id -> LaunchPlan.getLastLaunched(_root, id)))
+                    .collect(Collectors.toList());
+
+            for (String id : candidates) {
+                if (live <= budget) break;
+
+                evicted.add(id);
+                for (Path path : marked.get(id)) {
+                    if (references.merge(path, -1, Integer::sum) > 0) continue;
+
+                    references.remove(path);
+                    live -= files.getOrDefault(path, 0L);
+                }
+            }
+
+            List<Path> garbage = files.keySet().stream()
+                    .filter(path -> !references.containsKey(path) && isSwept(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            long byteCount = garbage.stream().mapToLong(files::get).sum();
+            for (String id : evicted)
+                byteCount += files.getOrDefault(getClientPath(id), 0L);
+
+            Report report = new Report(evicted, garbage.stream().map(Path::toFile).collect(Collectors.toList()), byteCount, live, dryRun);
+            if (dryRun) return CompletableFuture.completedFuture(report);
+
+            return sweep(garbage, evicted).thenApply(swept -> report);
+        }, _scheduler.getExecutor());
+    }
+
+    /**
+     * Deletes the files in batches on the executor of the scheduler, then the directories of the evicted versions.
+     */
+    private CompletableFuture<Void> sweep(List<Path> garbage, List<String> evicted) {
+        Optional<AssetStore> store = _scheduler.getStore();
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int start = 0; start < garbage.size(); start += SWEEP_BATCH_SIZE) {
+            List<Path> batch = garbage.subList(start, Math.min(start + SWEEP_BATCH_SIZE, garbage.size()));
+            batches.add(CompletableFuture.runAsync(() -> {
+                for (Path path : batch) {
+                    delete(path);
+                    store.ifPresent(verified -> verified.invalidate(path.toFile()));
+                }
+            }, _scheduler.getExecutor()));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenRunAsync(() -> {
+            for (String id : evicted) {
+                try (Stream<Path> paths = Files.walk(new File(_root, "versions/" + id).toPath())) {
+                    paths.sorted(Comparator.reverseOrder()).forEach(AssetCollector::delete);
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+
+                store.ifPresent(verified -> verified.invalidate(getClientPath(id).toFile()));
+            }
+
+            // Directories the sweep emptied, e.g.: the directory of an old library version, are removed as well.
+            for (Path directory : garbage.stream().map(Path::getParent).collect(Collectors.toCollection(LinkedHashSet::new))) {
+                Path parent = directory;
+                while (!isSweptDirectory(parent) && isEmptyDirectory(parent)) {
+                    delete(parent);
+                    parent = parent.getParent();
+                }
+            }
+
+            store.ifPresent(verified -> {
+                try {
+                    verified.save();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            });
+        }, _scheduler.getExecutor());
+    }
+
+    /**
+     * Returns the paths of all files the asset package references.
+     */
+    private Set<Path> mark(MCAssetPackage assetPackage, AssetIndex assetIndex) {
+        List<IDownloadableAsset> assets = new ArrayList<>();
+        assets.add(assetPackage.getClient());
+        assets.add(assetPackage.getAssetIndex());
+        assets.addAll(Arrays.asList(assetPackage.getLibraries()));
+        assets.addAll(Arrays.asList(assetPackage.getClassifiers()));
+
+        for (AssetIndex.Asset asset : assetIndex.getObjects())
+            assets.add(new MCAssetPackage.DownloadableGameAssetWrapper(asset.getHash(), asset.getSize()));
+
+        Set<Path> paths = new HashSet<>();
+        for (IDownloadableAsset asset : assets) {
+            File location = asset.getLocation(_root);
+            if (Objects.nonNull(location)) paths.add(normalize(location.toPath()));
+        }
+
+        return paths;
+    }
+
+    /**
+     * Returns the paths of all files that the version directories without an asset package refer to, read from their
+     * launch plan and version json. Every library in the version json is marked, regardless of its rules.
+     * The ids of the versions they are based on are added to the pinned versions.
+     */
+    private Set<Path> markUnlisted(Set<String> listed, Set<String> pinned) {
+        File[] directories = new File(_root, "versions").listFiles(File::isDirectory);
+        if (Objects.isNull(directories)) return Collections.emptySet();
+
+        Set<Path> paths = new HashSet<>();
+        for (File directory : directories) {
+            String id = directory.getName();
+            if (listed.contains(id)) continue;
+
+            Optional<LaunchPlan> plan = LaunchPlan.load(_root, id);
+            File json = new File(directory, id + ".json");
+            if (plan.isEmpty() && !json.isFile()) {
+                String[] children = directory.list();
+                if (Objects.isNull(children) || children.length == 0) continue;
+
+                throw new IllegalStateException(String.format("Cannot tell which files %s uses, pass its asset package or remove it", directory));
+            }
+
+            plan.ifPresent(launchPlan -> {
+                launchPlan.getClasspath(_root).forEach(file -> paths.add(normalize(file.toPath())));
+                markAssetIndex(launchPlan.getAssetIndex(), paths);
+            });
+
+            if (json.isFile()) markVersionJson(json, paths, pinned);
+        }
+
+        return paths;
+    }
+
+    private void markVersionJson(File file, Set<Path> paths, Set<String> pinned) {
+        VersionJson version;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            version = MojangJson.getGson().fromJson(reader, VersionJson.class);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        if (Objects.isNull(version))
+            throw new IllegalStateException("Empty version json " + file);
+
+        if (Objects.nonNull(version.getInheritsFrom()))
+            pinned.add(version.getInheritsFrom());
+
+        for (VersionJson.Library library : version.getLibraries()) {
+            VersionJson.Download artifact = library.getArtifact();
+            if (Objects.nonNull(artifact) && Objects.nonNull(artifact.getPath()))
+                paths.add(normalize(new File(_root, "libraries/" + artifact.getPath()).toPath()));
+            else if (Objects.nonNull(library.getName()))
+                paths.add(normalize(new File(_root, "libraries/" + getMavenPath(library.getName())).toPath()));
+
+            for (VersionJson.Download classifier : library.getClassifiers().values()) {
+                if (Objects.nonNull(classifier.getPath()))
+                    paths.add(normalize(new File(_root, "libraries/" + classifier.getPath()).toPath()));
+            }
+        }
+
+        markAssetIndex(Objects.nonNull(version.getAssetIndex()) ? version.getAssetIndex().getId() : version.getAssets(), paths);
+    }
+
+    private void markAssetIndex(String id, Set<Path> paths) {
+        if (Objects.isNull(id)) return;
+
+        File file = new File(_root, String.format("assets/indexes/%s.json", id));
+        paths.add(normalize(file.toPath()));
+        if (!file.isFile()) return;
+
+        AssetIndex index;
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            index = MojangJson.getGson().fromJson(reader, AssetIndex.class);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        if (Objects.isNull(index))
+            throw new IllegalStateException("Empty asset index " + file);
+
+        for (AssetIndex.Asset asset : index.getObjects())
+            paths.add(normalize(new MCAssetPackage.DownloadableGameAssetWrapper(asset.getHash(), asset.getSize()).getLocation(_root).toPath()));
+    }
+
+    /**
+     * Returns the path of a library in the libraries directory by its maven name, e.g.: "net.fabricmc:fabric-loader:0.14.0".
+     */
+    private static String getMavenPath(String name) {
+        String[] parts = name.split(":");
+        if (parts.length < 3) return name;
+
+        String file = parts[1] + "-" + parts[2] + (parts.length > 3 ? "-" + parts[3] : "") + ".jar";
+        return String.join("/", parts[0].replace('.', '/'), parts[1], parts[2], file);
+    }
+
+    /**
+     * Returns the size of every file in the swept directories and the version directories.
+     */
+    private Map<Path, Long> walk() {
+        Map<Path, Long> files = new HashMap<>();
+
+        List<String> directories = new ArrayList<>(SWEPT_DIRECTORIES);
+        directories.add("versions");
+        for (String directory : directories) {
+            Path path = normalize(new File(_root, directory).toPath());
+            if (!Files.isDirectory(path)) continue;
+
+            try (Stream<Path> paths = Files.walk(path)) {
+                paths.filter(Files::isRegularFile).forEach(file -> files.put(file, file.toFile().length()));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        return files;
+    }
+
+    private boolean isSwept(Path path) {
+        for (String directory : SWEPT_DIRECTORIES) {
+            if (path.startsWith(normalize(new File(_root, directory).toPath())))
+                return true;
+        }
+
+        return false;
+    }
+
+    private boolean isSweptDirectory(Path path) {
+        return Objects.isNull(path) || !isSwept(path) || SWEPT_DIRECTORIES.stream()
+                .anyMatch(directory -> path.equals(normalize(new File(_root, directory).toPath())));
+    }
+
+    private Path getClientPath(String id) {
+        return normalize(new File(_root, String.format("versions/%s/%s.jar", id, id)).toPath());
+    }
+
+    private static boolean isEmptyDirectory(Path path) {
+        try (Stream<Path> children = Files.list(path)) {
+            return children.findAny().isEmpty();
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Returns the asset packages of the versions that are installed to the Minecraft directory,
+     * which are the versions of which the client jar is present. Installed versions that are not in the provided
+     * versions are still kept by the collector, based on their launch plan and version json.
+     *
+     * @param versions The versions that might be installed, e.g.: the versions of the {@link VersionManifest}.
+     * @param root     The Minecraft directory.
+     * @param cache    The cache to fetch the version json files with.
+     * @return A future that completes with the asset packages of the installed versions.
+     */
+    public static CompletableFuture<List<MCAssetPackage>> getInstalled(Collection<? extends IMCVersion> versions, File root, MetadataCache cache) {
+        List<CompletableFuture<MCAssetPackage>> packages = versions.stream()
+                .filter(version -> new File(root, String.format("versions/%s/%s.jar", version.getId(), version.getId())).isFile())
+                .map(version -> MCAssetPackage.fromVersion(version, cache))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(packages.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> packages.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Represents the outcome of a collection.
+     */
+    public static class Report {
+
+        private final List<String> _evicted;
+        private final List<File> _files;
+        private final long _byteCount, _liveByteCount;
+        private final boolean _dryRun;
+
+        private Report(List<String> evicted, List<File> files, long byteCount, long liveByteCount, boolean dryRun) {
+            _evicted = evicted;
+            _files = files;
+            _byteCount = byteCount;
+            _liveByteCount = liveByteCount;
+            _dryRun = dryRun;
+        }
+
+        /**
+         * Returns the ids of the versions that were removed to fit the budget, least recently launched first.
+         *
+         * @return The ids of the versions that were removed to fit the budget.
+         */
+        public List<String> getEvictedVersions() {
+            return Collections.unmodifiableList(_evicted);
+        }
+
+        /**
+         * Returns the files that were removed from the shared directories.
+         *
+         * @return The files that were removed from the shared directories.
+         */
+        public List<File> getFiles() {
+            return Collections.unmodifiableList(_files);
+        }
+
+        /**
+         * Returns the amount of bytes that were freed, including the client jars of the removed versions.
+         *
+         * @return The amount of bytes that were freed.
+         */
+        public long getByteCount() {
+            return _byteCount;
+        }
+
+        /**
+         * Returns the amount of bytes the files of the remaining versions take.
+         *
+         * @return The amount of bytes the files of the remaining versions take.
+         */
+        public long getLiveByteCount() {
+            return _liveByteCount;
+        }
+
+        /**
+         * Returns true if nothing was removed, because the collection was a dry run, otherwise false.
+         *
+         * @return True if the collection was a dry run, otherwise false.
+         */
+        public boolean isDryRun() {
+            return _dryRun;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%d files (%d bytes) and %d versions %s, %d bytes in use",
+                    _dryRun ? "[dry run] " : "", _files.size(), _byteCount, _evicted.size(),
+                    _dryRun ? "to remove" : "removed", _liveByteCount);
+        }
+    }
+}
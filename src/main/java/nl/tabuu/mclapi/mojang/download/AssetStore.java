@@ -0,0 +1,207 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.IDownloadableAsset;
+import nl.tabuu.mclapi.util.FileUtil;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the files under a Minecraft directory that were verified against their sha1-hash before.
+ * A file that was verified before is trusted as long as its size and modification time are unchanged,
+ * so a warm directory does not have to be hashed again. Full re-hashing is only done in repair mode.
+ */
+public class AssetStore {
+
+    private static final String INDEX_LOCATION = ".mclapi/verification.idx";
+    private static final int MAGIC = 0x4D434C56, VERSION = 1;
+
+    private final Path _root;
+    private final File _indexFile;
+    private final Map<String, Entry> _entries;
+    private volatile boolean _repair, _dirty;
+
+    protected AssetStore(File root, File indexFile) {
+        _root = root.toPath().toAbsolutePath().normalize();
+        _indexFile = indexFile;
+        _entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Opens the store of the Minecraft directory, loading its verification index if there is one.
+     *
+     * @param root The Minecraft directory.
+     * @return The store of the Minecraft directory.
+     */
+    public static AssetStore open(File root) {
+        AssetStore store = new AssetStore(root, new File(root, INDEX_LOCATION));
+
+        try {
+            store.load();
+        } catch (IOException exception) {
+            // A corrupt index only costs a verification pass, so start over.
+            exception.printStackTrace();
+            store._entries.clear();
+        }
+
+        return store;
+    }
+
+    /**
+     * Returns true if the file was verified to match the asset before, and was not modified since, otherwise false.
+     * Always returns false in repair mode.
+     *
+     * @param file  The file to check.
+     * @param asset The asset the file should contain.
+     * @return True if the file can be trusted to match the asset, otherwise false.
+     */
+    public boolean isVerified(File file, IDownloadableAsset asset) {
+        if (_repair) return false;
+
+        Entry entry = _entries.get(getKey(file));
+        if (Objects.isNull(entry) || !entry.hash.equals(asset.getHash())) return false;
+
+        return entry.size == file.length() && entry.modified == file.lastModified();
+    }
+
+    /**
+     * Records that the file was verified to match the asset.
+     *
+     * @param file  The file that was verified.
+     * @param asset The asset the file matches.
+     */
+    public void markVerified(File file, IDownloadableAsset asset) {
+        long size = file.length();
+        if (Objects.isNull(asset.getHash()) || (asset.getSize() > 0 && asset.getSize() != size)) return;
+
+        _entries.put(getKey(file), new Entry(asset.getHash(), size, file.lastModified()));
+        _dirty = true;
+    }
+
+    /**
+     * Forgets the verification of the file.
+     *
+     * @param file The file to forget.
+     */
+    public void invalidate(File file) {
+        if (Objects.nonNull(_entries.remove(getKey(file))))
+            _dirty = true;
+    }
+
+    /**
+     * Returns true if this store is in repair mode, otherwise false.
+     *
+     * @return True if this store is in repair mode, otherwise false.
+     */
+    public boolean isRepair() {
+        return _repair;
+    }
+
+    /**
+     * Sets whether this store is in repair mode. In repair mode no file is trusted, so all files are hashed again.
+     *
+     * @param repair True to enable repair mode, false to disable it.
+     */
+    public void setRepair(boolean repair) {
+        _repair = repair;
+    }
+
+    /**
+     * Writes the verification index to disk, if it changed since it was loaded.
+     *
+     * @throws IOException If the index could not be written.
+     */
+    public synchronized void save() throws IOException {
+        if (!_dirty) return;
+        _dirty = false;
+
+        File parent = _indexFile.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+            throw new IOException("Failed to create directory " + parent);
+
+        Map<String, Entry> entries = new HashMap<>(_entries);
+        File temporary = new File(parent, _indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                out.writeUTF(mapEntry.getKey());
+                out.writeUTF(entry.hash);
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+            }
+        } catch (IOException exception) {
+            _dirty = true;
+            throw exception;
+        }
+
+        try {
+            Files.move(temporary.toPath(), _indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary.toPath(), _indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Verifies the files of all provided assets under the root directory, spread over all available cores.
+     *
+     * @param assets The assets to verify.
+     * @param root   The Minecraft directory the assets are located in.
+     * @return The assets of which the file is missing, or does not match the expected size or hash.
+     */
+    public static List<IDownloadableAsset> verifyAll(Collection<? extends IDownloadableAsset> assets, File root) {
+        return assets.parallelStream()
+                .filter(asset -> {
+                    File file = asset.getLocation(root);
+                    if (Objects.isNull(file) || !file.isFile()) return true;
+                    if (asset.getSize() > 0 && file.length() != asset.getSize()) return true;
+
+                    try {
+                        return !FileUtil.matchesSha1(file, asset.getHash());
+                    } catch (IOException exception) {
+                        return true;
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void load() throws IOException {
+        if (!_indexFile.isFile()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(_indexFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Unsupported verification index " + _indexFile);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                _entries.put(key, new Entry(in.readUTF(), in.readLong(), in.readLong()));
+            }
+        }
+    }
+
+    private String getKey(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        return path.startsWith(_root) ? _root.relativize(path).toString() : path.toString();
+    }
+
+    private static class Entry {
+        private final String hash;
+        private final long size, modified;
+
+        private Entry(String hash, long size, long modified) {
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.IDownloadableAsset;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.mojang.json.AssetIndex;
+
+import java.util.*;
+
+/**
+ * Represents the content of one or more versions as a sorted array of distinct sha1-hashes.
+ * Content is addressed by its hash, so two indexes are compared in a single linear pass over both arrays.
+ */
+public class ContentIndex {
+
+    private final String[] _hashes;
+    private final IDownloadableAsset[] _assets;
+
+    private ContentIndex(String[] hashes, IDownloadableAsset[] assets) {
+        _hashes = hashes;
+        _assets = assets;
+    }
+
+    /**
+     * Returns the amount of distinct files in this index.
+     *
+     * @return The amount of distinct files in this index.
+     */
+    public int size() {
+        return _hashes.length;
+    }
+
+    /**
+     * Returns the byte-size of the distinct files in this index.
+     *
+     * @return The byte-size of the distinct files in this index.
+     */
+    public long getByteCount() {
+        return getByteCount(Arrays.asList(_assets));
+    }
+
+    /**
+     * Returns true if this index contains a file with the sha1-hash, otherwise false.
+     *
+     * @param hash The sha1-hash of the file.
+     * @return True if this index contains a file with the sha1-hash, otherwise false.
+     */
+    public boolean contains(String hash) {
+        return Arrays.binarySearch(_hashes, hash.toLowerCase(Locale.ROOT)) >= 0;
+    }
+
+    /**
+     * Returns the distinct files of this index, ordered by their sha1-hash.
+     *
+     * @return The distinct files of this index.
+     */
+    public List<IDownloadableAsset> getAssets() {
+        return Collections.unmodifiableList(Arrays.asList(_assets));
+    }
+
+    /**
+     * Compares this index to the target index in a single pass over both.
+     *
+     * @param target The index to compare this index to, e.g.: the index of the version to upgrade to.
+     * @return The files that the target index adds and removes compared to this index.
+     */
+    public Diff diff(ContentIndex target) {
+        List<IDownloadableAsset> added = new ArrayList<>(), removed = new ArrayList<>();
+        int unchanged = 0, i = 0, j = 0;
+
+        while (i < _hashes.length || j < target._hashes.length) {
+            int comparison = i == _hashes.length ? 1 : j == target._hashes.length ? -1 : _hashes[i].compareTo(target._hashes[j]);
+
+            if (comparison < 0) {
+                removed.add(_assets[i++]);
+            } else if (comparison > 0) {
+                added.add(target._assets[j++]);
+            } else {
+                unchanged++;
+                i++;
+                j++;
+            }
+        }
+
+        return new Diff(added, removed, unchanged);
+    }
+
+    /**
+     * Creates the index of the files. Files with the same sha1-hash are only included once, files without a hash are left out.
+     *
+     * @param assets The files to index.
+     * @return The index of the files.
+     */
+    public static ContentIndex of(Collection<? extends IDownloadableAsset> assets) {
+        IDownloadableAsset[] sorted = assets.stream()
+                .filter(asset -> Objects.nonNull(asset.getHash()))
+                .sorted(Comparator.comparing(asset -> asset.getHash().toLowerCase(Locale.ROOT)))
+                .toArray(IDownloadableAsset[]::new);
+
+        String[] hashes = new String[sorted.length];
+        int size = 0;
+        for (IDownloadableAsset asset : sorted) {
+            String hash = asset.getHash().toLowerCase(Locale.ROOT);
+            if (size > 0 && hashes[size - 1].equals(hash)) continue;
+
+            hashes[size] = hash;
+            sorted[size++] = asset;
+        }
+
+        return new ContentIndex(Arrays.copyOf(hashes, size), Arrays.copyOf(sorted, size));
+    }
+
+    /**
+     * Creates the index of everything that is installed for the asset package: its client, libraries, classifiers,
+     * asset index and the assets listed in the asset index.
+     *
+     * @param assetPackage The asset package to index.
+     * @param assetIndex   The parsed asset index of the asset package.
+     * @return The index of the asset package.
+     */
+    public static ContentIndex of(MCAssetPackage assetPackage, AssetIndex assetIndex) {
+        List<IDownloadableAsset> assets = new ArrayList<>(assetIndex.getObjects().size() + assetPackage.getLibraries().length + 2);
+        assets.add(assetPackage.getClient());
+        assets.add(assetPackage.getAssetIndex());
+        assets.addAll(Arrays.asList(assetPackage.getLibraries()));
+        assets.addAll(Arrays.asList(assetPackage.getClassifiers()));
+
+        for (AssetIndex.Asset asset : assetIndex.getObjects())
+            assets.add(new MCAssetPackage.DownloadableGameAssetWrapper(asset.getHash(), asset.getSize()));
+
+        return of(assets);
+    }
+
+    private static long getByteCount(Collection<IDownloadableAsset> assets) {
+        return assets.stream().mapToLong(asset -> Math.max(asset.getSize(), 0)).sum();
+    }
+
+    /**
+     * Represents the difference between two content indexes. Changed files have a new hash, so they are listed as added.
+     */
+    public static class Diff {
+
+        private final List<IDownloadableAsset> _added, _removed;
+        private final int _unchanged;
+
+        private Diff(List<IDownloadableAsset> added, List<IDownloadableAsset> removed, int unchanged) {
+            _added = added;
+            _removed = removed;
+            _unchanged = unchanged;
+        }
+
+        /**
+         * Returns the files that are only in the target index, which are the files that have to be fetched.
+         *
+         * @return The files that are only in the target index.
+         */
+        public List<IDownloadableAsset> getAdded() {
+            return Collections.unmodifiableList(_added);
+        }
+
+        /**
+         * Returns the files that are only in the source index.
+         *
+         * @return The files that are only in the source index.
+         */
+        public List<IDownloadableAsset> getRemoved() {
+            return Collections.unmodifiableList(_removed);
+        }
+
+        /**
+         * Returns the amount of files that are in both indexes.
+         *
+         * @return The amount of files that are in both indexes.
+         */
+        public int getUnchangedCount() {
+            return _unchanged;
+        }
+
+        /**
+         * Returns the byte-size of the files that have to be fetched.
+         *
+         * @return The byte-size of the files that have to be fetched.
+         */
+        public long getAddedByteCount() {
+            return getByteCount(_added);
+        }
+
+        /**
+         * Returns the byte-size of the files that are only in the source index.
+         *
+         * @return The byte-size of the files that are only in the source index.
+         */
+        public long getRemovedByteCount() {
+            return getByteCount(_removed);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("+%d files (%d bytes), -%d files (%d bytes), %d unchanged",
+                    _added.size(), getAddedByteCount(), _removed.size(), getRemovedByteCount(), _unchanged);
+        }
+    }
+}
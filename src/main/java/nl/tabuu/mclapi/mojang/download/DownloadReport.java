@@ -0,0 +1,100 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import java.time.Duration;
+
+/**
+ * Represents the aggregate statistics of a {@link DownloadScheduler}.
+ */
+public class DownloadReport {
+
+    private final long _submitted, _completed, _failed, _bytes, _transferred, _elapsed;
+
+    public DownloadReport(long submitted, long completed, long failed, long bytes, long transferred, long elapsed) {
+        _submitted = submitted;
+        _completed = completed;
+        _failed = failed;
+        _bytes = bytes;
+        _transferred = transferred;
+        _elapsed = elapsed;
+    }
+
+    /**
+     * Returns the amount of downloads that were submitted.
+     *
+     * @return The amount of downloads that were submitted.
+     */
+    public long getSubmittedCount() {
+        return _submitted;
+    }
+
+    /**
+     * Returns the amount of downloads that completed successfully.
+     *
+     * @return The amount of downloads that completed successfully.
+     */
+    public long getCompletedCount() {
+        return _completed;
+    }
+
+    /**
+     * Returns the amount of downloads that failed.
+     *
+     * @return The amount of downloads that failed.
+     */
+    public long getFailedCount() {
+        return _failed;
+    }
+
+    /**
+     * Returns the amount of bytes that are on disk for the successful downloads.
+     *
+     * @return The amount of bytes that are on disk for the successful downloads.
+     */
+    public long getByteCount() {
+        return _bytes;
+    }
+
+    /**
+     * Returns the amount of bytes that were actually transferred, excluding files that were already on disk.
+     *
+     * @return The amount of bytes that were actually transferred.
+     */
+    public long getTransferredByteCount() {
+        return _transferred;
+    }
+
+    /**
+     * Returns the time between the first submitted download and this report.
+     *
+     * @return The time between the first submitted download and this report.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(_elapsed);
+    }
+
+    /**
+     * Returns the aggregate throughput of the transferred bytes in bytes per second.
+     * Files that were already on disk do not count towards the throughput.
+     *
+     * @return The aggregate throughput in bytes per second.
+     */
+    public double getBytesPerSecond() {
+        if (_elapsed <= 0) return 0;
+        return _transferred / (_elapsed / 1_000_000_000d);
+    }
+
+    /**
+     * Returns true if every submitted download completed successfully, otherwise false.
+     *
+     * @return True if every submitted download completed successfully, otherwise false.
+     */
+    public boolean isSuccessful() {
+        return _failed == 0 && _completed == _submitted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d downloads (%d failed), %.1f MiB on disk, %.1f MiB transferred in %d ms, %.2f MiB/s",
+                _completed, _submitted, _failed, _bytes / 1048576d, _transferred / 1048576d, getElapsed().toMillis(), getBytesPerSecond() / 1048576d);
+    }
+}
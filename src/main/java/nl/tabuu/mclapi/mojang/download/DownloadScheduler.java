@@ -0,0 +1,269 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.IDownloadableAsset;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Schedules asset downloads with a bounded amount of parallelism on a pluggable executor.
+ */
+public class DownloadScheduler {
+
+    private static final int DEFAULT_CONCURRENCY = 16;
+    private static Executor DEFAULT_EXECUTOR, VIRTUAL_THREAD_EXECUTOR;
+
+    private final int _concurrency;
+    private final Executor _executor;
+
+    private volatile AssetStore _store;
+    private final Queue<Task> _queue;
+    private final AtomicInteger _active;
+    private final LongAdder _submitted, _completed, _failed, _bytes, _transferred;
+    private volatile long _startTime;
+
+    /**
+     * Creates a scheduler that runs at most the given amount of downloads at once on the given executor.
+     *
+     * @param concurrency The maximum amount of downloads running at the same time.
+     * @param executor    The executor the downloads are run on.
+     */
+    public DownloadScheduler(int concurrency, Executor executor) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1.");
+
+        _concurrency = concurrency;
+        _executor = Objects.requireNonNull(executor);
+
+        _queue = new ConcurrentLinkedQueue<>();
+        _active = new AtomicInteger();
+        _submitted = new LongAdder();
+        _completed = new LongAdder();
+        _failed = new LongAdder();
+        _bytes = new LongAdder();
+        _transferred = new LongAdder();
+    }
+
+    public DownloadScheduler(int concurrency) {
+        this(concurrency, getDefaultExecutor());
+    }
+
+    public DownloadScheduler() {
+        this(DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Returns the maximum amount of downloads running at the same time.
+     *
+     * @return The maximum amount of downloads running at the same time.
+     */
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    /**
+     * Returns the executor the downloads are run on.
+     *
+     * @return The executor the downloads are run on.
+     */
+    public Executor getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * Returns an optional containing the store used to skip files that were verified before, if there is one.
+     *
+     * @return An optional containing the store used to skip files that were verified before, if there is one.
+     */
+    public Optional<AssetStore> getStore() {
+        return Optional.ofNullable(_store);
+    }
+
+    /**
+     * Sets the store used to skip files that were verified before, and to record newly verified files.
+     *
+     * @param store The store to use, or null to always verify existing files.
+     */
+    public void setStore(AssetStore store) {
+        _store = store;
+    }
+
+    /**
+     * Queues the asset to be downloaded to the target file.
+     *
+     * @param asset  The asset to download.
+     * @param target The file to download the asset to.
+     * @return A future that completes with true if the asset downloaded successfully, false otherwise.
+     */
+    public CompletableFuture<Boolean> submit(IDownloadableAsset asset, File target) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        if (_startTime == 0)
+            _startTime = System.nanoTime();
+
+        _submitted.increment();
+        _queue.add(new Task(result, () -> {
+            AssetStore store = _store;
+            boolean downloaded, transferred = false;
+
+            if (Objects.nonNull(store) && store.isVerified(target, asset)) {
+                downloaded = true;
+            } else {
+                // A file that is rewritten was transferred, a file that is left untouched matched already.
+                boolean existed = target.isFile();
+                long modified = target.lastModified();
+
+                try {
+                    // The direct executor keeps the transfer on this worker, so the concurrency limit actually holds.
+                    downloaded = asset.download(target, Runnable::run).join();
+                } catch (CompletionException exception) {
+                    exception.printStackTrace();
+                    downloaded = false;
+                }
+
+                if (downloaded)
+                    transferred = !existed || target.lastModified() != modified;
+
+                if (Objects.nonNull(store)) {
+                    if (downloaded) store.markVerified(target, asset);
+                    else store.invalidate(target);
+                }
+            }
+
+            if (downloaded) {
+                _completed.increment();
+                long size = Math.max(asset.getSize(), 0);
+                _bytes.add(size);
+                if (transferred) _transferred.add(size);
+            } else {
+                _failed.increment();
+            }
+
+            return downloaded;
+        }));
+
+        drain();
+        return result;
+    }
+
+    /**
+     * Returns a future that completes with true if all provided downloads completed successfully, false otherwise.
+     *
+     * @param downloads The downloads to combine.
+     * @return A future that completes once all provided downloads are done.
+     */
+    public static CompletableFuture<Boolean> all(Collection<CompletableFuture<Boolean>> downloads) {
+        return CompletableFuture.allOf(downloads.toArray(CompletableFuture[]::new))
+                .thenApply(v -> downloads.stream().allMatch(CompletableFuture::join));
+    }
+
+    /**
+     * Returns a snapshot of the aggregate statistics of this scheduler.
+     *
+     * @return A snapshot of the aggregate statistics of this scheduler.
+     */
+    public DownloadReport getReport() {
+        long elapsed = _startTime == 0 ? 0 : System.nanoTime() - _startTime;
+        return new DownloadReport(_submitted.sum(), _completed.sum(), _failed.sum(), _bytes.sum(), _transferred.sum(), elapsed);
+    }
+
+    private void drain() {
+        while (true) {
+            int active = _active.get();
+            if (active >= _concurrency || _queue.isEmpty()) return;
+            if (!_active.compareAndSet(active, active + 1)) continue;
+
+            Task task = _queue.poll();
+            if (Objects.isNull(task)) {
+                _active.decrementAndGet();
+                continue;
+            }
+
+            try {
+                _executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        _active.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException exception) {
+                // The task was already taken from the queue, so its download fails instead of never completing.
+                _active.decrementAndGet();
+                _failed.increment();
+                task._result.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * Returns the shared executor used by schedulers that were not given one.
+     * This is the virtual thread executor when the runtime supports virtual threads (Java 21+),
+     * otherwise a cached pool of daemon threads.
+     *
+     * @return The shared executor used by schedulers that were not given one.
+     */
+    public static synchronized Executor getDefaultExecutor() {
+        if (Objects.isNull(DEFAULT_EXECUTOR)) {
+            DEFAULT_EXECUTOR = virtualThreadExecutor();
+        }
+
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * Returns the shared executor that starts a virtual thread per download when the runtime supports them (Java 21+),
+     * otherwise a shared cached pool of daemon threads.
+     *
+     * @return An executor backed by virtual threads, if available.
+     */
+    public static synchronized Executor virtualThreadExecutor() {
+        if (Objects.isNull(VIRTUAL_THREAD_EXECUTOR)) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                VIRTUAL_THREAD_EXECUTOR = (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException exception) {
+                VIRTUAL_THREAD_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "mclapi-download");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+
+        return VIRTUAL_THREAD_EXECUTOR;
+    }
+
+    private class Task implements Runnable {
+        private final CompletableFuture<Boolean> _result;
+        private final Supplier<Boolean> _body;
+
+        private Task(CompletableFuture<Boolean> result, Supplier<Boolean> body) {
+            _result = result;
+            _body = body;
+        }
+
+        @Override
+        public void run() {
+            try {
+                _result.complete(_body.get());
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
+                _failed.increment();
+                _result.complete(false);
+            } catch (Error error) {
+                _result.completeExceptionally(error);
+                throw error;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.util.BufferPool;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes a response body to a {@link FileChannel} from the provided position onwards, coalescing the small chunks
+ * the client delivers into a large direct buffer so the file is written in few, large system calls.
+ * Writes are positional, so several subscribers can fill different ranges of the same channel.
+ * If a digest is provided, it is updated with every written byte. The channel is not closed by this subscriber.
+ */
+class FileChannelSubscriber implements HttpResponse.BodySubscriber<Long> {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final BufferPool BUFFER_POOL = new BufferPool(BUFFER_SIZE, true);
+
+    private final FileChannel _channel;
+    private final MessageDigest _digest;
+    private final long _position;
+    private final CompletableFuture<Long> _result;
+    private Flow.Subscription _subscription;
+    private ByteBuffer _buffer;
+    private long _written;
+
+    FileChannelSubscriber(FileChannel channel, MessageDigest digest, long position) {
+        _channel = channel;
+        _digest = digest;
+        _position = position;
+        _result = new CompletableFuture<>();
+
+        _buffer = BUFFER_POOL.acquire();
+    }
+
+    @Override
+    public CompletionStage<Long> getBody() {
+        return _result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        _subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            for (ByteBuffer item : items) {
+                while (item.hasRemaining()) {
+                    if (!_buffer.hasRemaining())
+                        flush();
+
+                    int length = Math.min(item.remaining(), _buffer.remaining());
+                    ByteBuffer slice = item.duplicate();
+                    slice.limit(slice.position() + length);
+                    _buffer.put(slice);
+                    item.position(item.position() + length);
+                }
+            }
+        } catch (IOException exception) {
+            _subscription.cancel();
+            fail(exception);
+            return;
+        }
+
+        _subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            flush();
+            release();
+            _result.complete(_written);
+        } catch (IOException exception) {
+            fail(exception);
+        }
+    }
+
+    private void flush() throws IOException {
+        _buffer.flip();
+        if (Objects.nonNull(_digest))
+            _digest.update(_buffer.duplicate());
+
+        while (_buffer.hasRemaining())
+            _written += _channel.write(_buffer, _position + _written);
+        _buffer.clear();
+    }
+
+    private void release() {
+        if (Objects.isNull(_buffer)) return;
+
+        BUFFER_POOL.release(_buffer);
+        _buffer = null;
+    }
+
+    private void fail(Throwable throwable) {
+        release();
+        _result.completeExceptionally(throwable);
+    }
+}
@@ -0,0 +1,239 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.*;
+import nl.tabuu.mclapi.mojang.json.AssetIndex;
+import nl.tabuu.mclapi.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Represents the installation of several versions at once. The clients, libraries, classifiers, asset indexes and assets
+ * of all versions are combined by their sha1-hash, so content that is shared between versions is downloaded and verified once.
+ * Content that is stored at more than one location is downloaded to the first location and copied to the others.
+ */
+public class InstallPlan {
+
+    private final File _root;
+    private final DownloadScheduler _scheduler;
+    private final List<MCAssetPackage> _packages;
+    private final Map<String, Artifact> _artifacts;
+    private final Map<String, List<String>> _assets;
+
+    private InstallPlan(File root, DownloadScheduler scheduler, List<MCAssetPackage> packages, Map<String, Artifact> artifacts, Map<String, List<String>> assets) {
+        _root = root;
+        _scheduler = scheduler;
+        _packages = packages;
+        _artifacts = artifacts;
+        _assets = assets;
+    }
+
+    /**
+     * Returns the asset packages of the versions in the plan.
+     *
+     * @return The asset packages of the versions in the plan.
+     */
+    public List<MCAssetPackage> getAssetPackages() {
+        return Collections.unmodifiableList(_packages);
+    }
+
+    /**
+     * Returns the amount of distinct files in the plan.
+     *
+     * @return The amount of distinct files in the plan.
+     */
+    public int getArtifactCount() {
+        return _artifacts.size();
+    }
+
+    /**
+     * Returns the byte-size of the distinct files in the plan, which is the most that executing the plan downloads.
+     *
+     * @return The byte-size of the distinct files in the plan.
+     */
+    public long getByteCount() {
+        return _artifacts.values().stream().mapToLong(artifact -> Math.max(artifact.asset.getSize(), 0)).sum();
+    }
+
+    /**
+     * Downloads every distinct file once, copies files that are stored at several locations, extracts the classifiers
+     * and writes the {@link LaunchPlan} of every version of which all files were installed successfully.
+     * If the scheduler has an {@link AssetStore}, its verification index is saved once all downloads are done.
+     *
+     * @return A future that completes once the plan was executed, with true if all versions were installed successfully.
+     */
+    public CompletableFuture<Boolean> execute() {
+        Map<String, CompletableFuture<Boolean>> downloads = new HashMap<>();
+        _artifacts.forEach((key, artifact) -> downloads.put(key, download(artifact)));
+
+        List<CompletableFuture<Boolean>> versions = new ArrayList<>();
+        for (MCAssetPackage assetPackage : _packages) {
+            List<CompletableFuture<Boolean>> files = new ArrayList<>();
+            files.add(downloads.get(getKey(assetPackage.getClient())));
+            files.add(downloads.get(getKey(assetPackage.getAssetIndex())));
+
+            for (IDownloadableAsset library : assetPackage.getLibraries())
+                files.add(downloads.get(getKey(library)));
+
+            for (MCAssetPackage.DownloadableLibraryWrapper classifier : assetPackage.getClassifiers()) {
+                files.add(downloads.get(getKey(classifier)).thenApplyAsync(
+                        downloaded -> downloaded && assetPackage.extractClassifier(classifier, _root), _scheduler.getExecutor()));
+            }
+
+            for (String asset : _assets.get(getKey(assetPackage.getAssetIndex())))
+                files.add(downloads.get(asset));
+
+            versions.add(DownloadScheduler.all(files).thenApply(installed -> {
+                if (installed) {
+                    try {
+                        LaunchPlan.of(assetPackage).save(_root);
+                    } catch (IOException exception) {
+                        exception.printStackTrace();
+                    }
+                }
+
+                return installed;
+            }));
+        }
+
+        return DownloadScheduler.all(versions).thenApply(installed -> {
+            _scheduler.getStore().ifPresent(store -> {
+                try {
+                    store.save();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            });
+
+            return installed;
+        });
+    }
+
+    private CompletableFuture<Boolean> download(Artifact artifact) {
+        Iterator<File> targets = artifact.targets.iterator();
+        File first = targets.next();
+
+        CompletableFuture<Boolean> download = _scheduler.submit(artifact.asset, first);
+        if (!targets.hasNext()) return download;
+
+        return download.thenApplyAsync(downloaded -> {
+            if (!downloaded) return false;
+
+            Optional<AssetStore> store = _scheduler.getStore();
+            while (targets.hasNext()) {
+                File target = targets.next();
+                try {
+                    if (store.isPresent() && store.get().isVerified(target, artifact.asset)) continue;
+                    if (!target.isFile() || !FileUtil.matchesSha1(target, artifact.asset.getHash()))
+                        FileUtil.copy(first, target);
+
+                    store.ifPresent(verified -> verified.markVerified(target, artifact.asset));
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                    return false;
+                }
+            }
+
+            return true;
+        }, _scheduler.getExecutor());
+    }
+
+    /**
+     * Creates the plan to install the versions to the Minecraft directory, using the {@link MetadataCache}
+     * and a scheduler that skips files that were verified before.
+     *
+     * @param versions The versions to install.
+     * @param root     The Minecraft directory to install the versions to.
+     * @return A future that completes with the plan.
+     */
+    public static CompletableFuture<InstallPlan> create(Collection<? extends IMCVersion> versions, File root) {
+        DownloadScheduler scheduler = new DownloadScheduler();
+        scheduler.setStore(AssetStore.open(root));
+        return create(versions, root, scheduler, MetadataCache.getDefault());
+    }
+
+    /**
+     * Creates the plan to install the versions to the Minecraft directory. The asset indexes of the versions are downloaded
+     * while planning, every distinct asset index once, because the assets they list are part of the plan.
+     *
+     * @param versions  The versions to install.
+     * @param root      The Minecraft directory to install the versions to.
+     * @param scheduler The scheduler to queue the downloads on.
+     * @param cache     The cache to fetch the version json files with.
+     * @return A future that completes with the plan.
+     */
+    public static CompletableFuture<InstallPlan> create(Collection<? extends IMCVersion> versions, File root, DownloadScheduler scheduler, MetadataCache cache) {
+        List<CompletableFuture<MCAssetPackage>> packages = versions.stream()
+                .map(version -> MCAssetPackage.fromVersion(version, cache))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(packages.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> create(packages.stream().map(CompletableFuture::join).collect(Collectors.toList()), root, scheduler));
+    }
+
+    /**
+     * Creates the plan to install the asset packages to the Minecraft directory. The asset indexes of the packages are downloaded
+     * while planning, every distinct asset index once, because the assets they list are part of the plan.
+     *
+     * @param packages  The asset packages to install.
+     * @param root      The Minecraft directory to install the asset packages to.
+     * @param scheduler The scheduler to queue the downloads on.
+     * @return A future that completes with the plan.
+     */
+    public static CompletableFuture<InstallPlan> create(List<MCAssetPackage> packages, File root, DownloadScheduler scheduler) {
+        Map<String, Artifact> artifacts = new LinkedHashMap<>();
+        for (MCAssetPackage assetPackage : packages) {
+            add(artifacts, assetPackage.getClient(), root);
+            add(artifacts, assetPackage.getAssetIndex(), root);
+
+            for (IDownloadableAsset library : assetPackage.getLibraries())
+                add(artifacts, library, root);
+
+            for (IDownloadableAsset classifier : assetPackage.getClassifiers())
+                add(artifacts, classifier, root);
+        }
+
+        // Versions of the same line share their asset index, which only has to be downloaded and read once.
+        Map<String, CompletableFuture<AssetIndex>> indexes = new LinkedHashMap<>();
+        for (MCAssetPackage assetPackage : packages) {
+            indexes.computeIfAbsent(getKey(assetPackage.getAssetIndex()),
+                    key -> AssetIndexCache.getDefault().get(assetPackage.getAssetIndex(), root, scheduler));
+        }
+
+        return CompletableFuture.allOf(indexes.values().toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, List<String>> assets = new HashMap<>();
+            indexes.forEach((key, index) -> assets.put(key, index.join().getObjects().stream()
+                    .map(asset -> add(artifacts, new MCAssetPackage.DownloadableGameAssetWrapper(asset.getHash(), asset.getSize()), root))
+                    .distinct()
+                    .collect(Collectors.toList())));
+
+            return new InstallPlan(root, scheduler, new ArrayList<>(packages), artifacts, assets);
+        });
+    }
+
+    /**
+     * Adds the asset to the artifacts, and returns its key.
+     */
+    private static String add(Map<String, Artifact> artifacts, IDownloadableAsset asset, File root) {
+        String key = getKey(asset);
+        artifacts.computeIfAbsent(key, ignored -> new Artifact(asset)).targets.add(asset.getLocation(root));
+        return key;
+    }
+
+    private static String getKey(IDownloadableAsset asset) {
+        return Objects.isNull(asset.getHash()) ? asset.getUrl() : asset.getHash().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Artifact {
+        private final IDownloadableAsset asset;
+        private final Set<File> targets;
+
+        private Artifact(IDownloadableAsset asset) {
+            this.asset = asset;
+            this.targets = new LinkedHashSet<>();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.util.FileUtil;
+import nl.tabuu.mclapi.util.JsonHttpClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+
+/**
+ * Transfers remote files to disk over a shared, connection-pooled {@link HttpClient}.
+ * Requests to the same host are multiplexed over keep-alive HTTP/2 connections where the server supports it,
+ * and response bodies are streamed straight into a {@link FileChannel}.
+ * Concurrent transfers of the same sha1-hash are coalesced, so content that is shared by several installs is downloaded once.
+ */
+public class TransferEngine {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int MAX_ATTEMPTS = 3, SEGMENT_COUNT = 4, HASH_BUFFER_SIZE = 64 * 1024;
+    private static final long SEGMENT_THRESHOLD = 16 * 1024 * 1024;
+    private static final Duration REQUEST_TIME_OUT = Duration.ofMinutes(5);
+
+    private static TransferEngine DEFAULT;
+
+    private final HttpClient _client;
+    private final Duration _timeout;
+    private final Map<String, CompletableFuture<File>> _inFlight;
+
+    /**
+     * Creates a transfer engine on top of the provided client.
+     *
+     * @param client  The client to send the requests with.
+     * @param timeout The maximum time a single transfer may take.
+     */
+    public TransferEngine(HttpClient client, Duration timeout) {
+        _client = Objects.requireNonNull(client);
+        _timeout = timeout;
+        _inFlight = new ConcurrentHashMap<>();
+    }
+
+    public TransferEngine() {
+        this(JsonHttpClient.getDefault().getClient(), REQUEST_TIME_OUT);
+    }
+
+    /**
+     * Returns the client used by this engine.
+     *
+     * @return The client used by this engine.
+     */
+    public HttpClient getClient() {
+        return _client;
+    }
+
+    /**
+     * Downloads the resource at the url to the target file, replacing any existing content.
+     * This method blocks until the transfer is complete.
+     *
+     * @param url    The url of the resource.
+     * @param target The file to write the resource to.
+     * @return The amount of bytes written.
+     * @throws IOException If the transfer failed, or the server responded with a non-successful status.
+     */
+    public long transfer(String url, File target) throws IOException {
+        return transfer(url, target, null, -1);
+    }
+
+    /**
+     * Downloads the resource at the url to the target file, verifying the sha1-hash and size while the bytes are written.
+     * The resource is written to a part file that only replaces the target once it matches,
+     * so a failed transfer never leaves a partial target behind. Interrupted transfers resume from the part file
+     * using a range request, large resources are downloaded in parallel segments, and mismatching transfers are retried.
+     * If a transfer of the same hash is already in flight, its result is waited for and copied instead of downloading it again.
+     * This method blocks until the transfer is complete.
+     *
+     * @param url    The url of the resource.
+     * @param target The file to write the resource to.
+     * @param hash   The expected sha1-hash of the resource, or null to skip the hash check.
+     * @param size   The expected byte-size of the resource, or a negative number to skip the size check.
+     * @return The amount of bytes written.
+     * @throws IOException If the transfer failed, or the resource did not match after all attempts.
+     */
+    public long transfer(String url, File target, String hash, long size) throws IOException {
+        if (Objects.isNull(hash))
+            return transferAttempts(url, target, null, size);
+
+        String key = hash.toLowerCase(Locale.ROOT);
+        CompletableFuture<File> created = new CompletableFuture<>();
+        CompletableFuture<File> running = _inFlight.putIfAbsent(key, created);
+
+        if (Objects.nonNull(running)) {
+            File source = await(running);
+
+            // If the other transfer failed, this one tries for itself.
+            if (Objects.isNull(source))
+                return transfer(url, target, hash, size);
+
+            if (!source.getAbsoluteFile().equals(target.getAbsoluteFile()))
+                FileUtil.copy(source, target);
+
+            return target.length();
+        }
+
+        try {
+            long length = transferAttempts(url, target, hash, size);
+            created.complete(target);
+            return length;
+        } catch (IOException | RuntimeException exception) {
+            created.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            _inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Waits for a transfer of another thread, and returns the file it wrote, or null if it failed.
+     */
+    private static File await(CompletableFuture<File> transfer) throws IOException {
+        try {
+            return transfer.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a transfer of the same file");
+        } catch (ExecutionException exception) {
+            return null;
+        }
+    }
+
+    private long transferAttempts(String url, File target, String hash, long size) throws IOException {
+        IOException failure = null;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                return transferOnce(url, target, hash, size);
+            } catch (InterruptedIOException exception) {
+                throw exception;
+            } catch (IOException exception) {
+                if (Objects.nonNull(failure))
+                    exception.addSuppressed(failure);
+                failure = exception;
+            }
+        }
+
+        throw failure;
+    }
+
+    private long transferOnce(String url, File target, String hash, long size) throws IOException {
+        File parent = target.getParentFile();
+        if (Objects.nonNull(parent) && !parent.isDirectory() && !parent.mkdirs())
+            throw new IOException("Failed to create directory " + parent);
+
+        File part = new File(parent, target.getName() + PART_SUFFIX);
+        MessageDigest digest = Objects.isNull(hash) ? null : FileUtil.createSha1Digest();
+
+        // A failed transfer keeps its part file, so the next attempt can resume where it left off.
+        long length = -1;
+        if (size >= SEGMENT_THRESHOLD && !part.exists())
+            length = sendSegmented(url, part, digest, size);
+
+        if (length < 0) {
+            if (Objects.nonNull(digest))
+                digest.reset();
+
+            length = send(url, part, digest, size);
+        }
+
+        try {
+            if (size >= 0 && length != size)
+                throw new IOException(String.format("Size mismatch for %s: expected %d bytes, received %d", url, size, length));
+
+            if (Objects.nonNull(digest) && !MessageDigest.isEqual(digest.digest(), FileUtil.fromHex(hash)))
+                throw new IOException(String.format("Hash mismatch for %s: expected %s", url, hash));
+        } catch (IOException exception) {
+            Files.deleteIfExists(part.toPath());
+            throw exception;
+        }
+
+        try {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return length;
+    }
+
+    /**
+     * Downloads the resource to the part file in a single request, resuming from the bytes already in the part file.
+     *
+     * @return The length of the part file after the transfer.
+     */
+    private long send(String url, File part, MessageDigest digest, long size) throws IOException {
+        long offset = part.isFile() ? part.length() : 0;
+        if (size >= 0 && offset > size) {
+            Files.delete(part.toPath());
+            offset = 0;
+        }
+
+        if (offset > 0 && Objects.nonNull(digest))
+            FileUtil.updateDigest(digest, part, offset);
+
+        if (size >= 0 && offset == size)
+            return offset;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(_timeout)
+                .GET();
+
+        if (offset > 0)
+            builder.header("Range", String.format("bytes=%d-", offset));
+
+        long resumeOffset = offset;
+        HttpResponse<Long> response;
+        try (FileChannel channel = FileChannel.open(part.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            response = _client.send(builder.build(), info -> {
+                if (resumeOffset > 0 && info.statusCode() == 206 && isRangeStart(info, resumeOffset))
+                    return new FileChannelSubscriber(channel, digest, resumeOffset);
+
+                if (info.statusCode() != 200)
+                    return rejected();
+
+                // The server ignored the range, so start over.
+                try {
+                    channel.truncate(0);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+
+                if (Objects.nonNull(digest))
+                    digest.reset();
+
+                return new FileChannelSubscriber(channel, digest, 0);
+            });
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transfer of " + url + " was interrupted");
+        }
+
+        if (response.statusCode() == 416)
+            Files.deleteIfExists(part.toPath());
+
+        if (response.body() < 0)
+            throw new IOException(String.format("Could not download %s (status %d)", url, response.statusCode()));
+
+        return response.statusCode() == 206 ? resumeOffset + response.body() : response.body();
+    }
+
+    /**
+     * Downloads the resource to the part file in parallel segments, each written to its own range of the file.
+     * The first segment is hashed while it streams in. The other segments are hashed in order as soon as they are
+     * complete, while the segments after them are still downloading, so the file is hashed in a single pass.
+     * If the transfer fails, the segments that are still running are cancelled before the part file is closed and deleted.
+     *
+     * @return The length of the part file, or -1 if the server does not support range requests.
+     */
+    private long sendSegmented(String url, File part, MessageDigest digest, long size) throws IOException {
+        long segmentSize = (size + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+        List<CompletableFuture<HttpResponse<Long>>> segments = new ArrayList<>();
+        boolean complete = false;
+
+        try (FileChannel channel = FileChannel.open(part.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            try {
+                for (long start = 0; start < size; start += segmentSize) {
+                    long position = start, end = Math.min(size, start + segmentSize) - 1;
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                            .timeout(_timeout)
+                            .header("Range", String.format("bytes=%d-%d", start, end))
+                            .GET()
+                            .build();
+
+                    segments.add(_client.sendAsync(request, info -> {
+                        if (info.statusCode() != 206 || !isRangeStart(info, position))
+                            return rejected();
+
+                        return new FileChannelSubscriber(channel, position == 0 ? digest : null, position);
+                    }));
+                }
+
+                long length = 0;
+                for (CompletableFuture<HttpResponse<Long>> segment : segments) {
+                    HttpResponse<Long> response = segment.get();
+                    if (response.body() < 0) return -1;
+
+                    if (length > 0 && Objects.nonNull(digest))
+                        updateDigest(digest, channel, length, response.body());
+
+                    length += response.body();
+                }
+
+                complete = true;
+                return length;
+            } finally {
+                // Segments that are still running would otherwise keep writing to the channel after it is closed.
+                if (!complete)
+                    segments.forEach(segment -> segment.cancel(true));
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Transfer of " + url + " was interrupted");
+        } catch (ExecutionException exception) {
+            throw new IOException("Could not download " + url, exception.getCause());
+        } finally {
+            if (!complete)
+                Files.deleteIfExists(part.toPath());
+        }
+    }
+
+    /**
+     * Updates the digest with a range of the channel. The range is read rather than mapped,
+     * since a mapped part file cannot be moved over the target on every platform.
+     */
+    private static void updateDigest(MessageDigest digest, FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+
+        for (long offset = 0; offset < length; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - offset));
+            int read = channel.read(buffer, position + offset);
+            if (read < 0)
+                throw new IOException("Unexpected end of segment at " + (position + offset));
+
+            buffer.flip();
+            digest.update(buffer);
+            offset += read;
+        }
+    }
+
+    private static boolean isRangeStart(HttpResponse.ResponseInfo info, long position) {
+        return info.headers().firstValue("Content-Range")
+                .map(range -> range.startsWith(String.format("bytes %d-", position)))
+                .orElse(false);
+    }
+
+    /**
+     * Returns a body subscriber that cancels the body right away, so no bandwidth is spent on unusable responses.
+     *
+     * @return A body subscriber that cancels the body right away.
+     */
+    private static HttpResponse.BodySubscriber<Long> rejected() {
+        return new HttpResponse.BodySubscriber<>() {
+            @Override
+            public CompletionStage<Long> getBody() {
+                return CompletableFuture.completedFuture(-1L);
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> item) { }
+
+            @Override
+            public void onError(Throwable throwable) { }
+
+            @Override
+            public void onComplete() { }
+        };
+    }
+
+    /**
+     * Returns the engine shared by all assets that are not given one.
+     *
+     * @return The engine shared by all assets that are not given one.
+     */
+    public static synchronized TransferEngine getDefault() {
+        if (Objects.isNull(DEFAULT))
+            DEFAULT = new TransferEngine();
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the engine shared by all assets that are not given one.
+     *
+     * @param engine The new default engine.
+     */
+    public static synchronized void setDefault(TransferEngine engine) {
+        DEFAULT = Objects.requireNonNull(engine);
+    }
+}
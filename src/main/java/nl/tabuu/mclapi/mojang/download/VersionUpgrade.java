@@ -0,0 +1,142 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Represents the upgrade of an installed version to another version. Only the files of which the hash is not part of
+ * the installed version are fetched, the files both versions share are neither downloaded nor verified again.
+ * The size of the upgrade is known once it is planned, before anything is fetched.
+ */
+public class VersionUpgrade {
+
+    private final MCAssetPackage _from, _to;
+    private final File _root;
+    private final DownloadScheduler _scheduler;
+    private final ContentIndex.Diff _diff;
+
+    private VersionUpgrade(MCAssetPackage from, MCAssetPackage to, File root, DownloadScheduler scheduler, ContentIndex.Diff diff) {
+        _from = from;
+        _to = to;
+        _root = root;
+        _scheduler = scheduler;
+        _diff = diff;
+    }
+
+    /**
+     * Returns the asset package of the installed version.
+     *
+     * @return The asset package of the installed version.
+     */
+    public MCAssetPackage getFrom() {
+        return _from;
+    }
+
+    /**
+     * Returns the asset package of the version to upgrade to.
+     *
+     * @return The asset package of the version to upgrade to.
+     */
+    public MCAssetPackage getTo() {
+        return _to;
+    }
+
+    /**
+     * Returns the files the upgrade adds and removes.
+     *
+     * @return The files the upgrade adds and removes.
+     */
+    public ContentIndex.Diff getDiff() {
+        return _diff;
+    }
+
+    /**
+     * Returns the byte-size of the files the upgrade fetches.
+     *
+     * @return The byte-size of the files the upgrade fetches.
+     */
+    public long getDeltaByteCount() {
+        return _diff.getAddedByteCount();
+    }
+
+    /**
+     * Fetches the added files, extracts the classifiers of the new version and writes its {@link LaunchPlan}.
+     * If the scheduler has an {@link AssetStore}, its verification index is saved once all downloads are done.
+     * The files of the installed version are kept.
+     *
+     * @return A future that completes once the upgrade is done, with true if all added files were fetched successfully.
+     */
+    public CompletableFuture<Boolean> execute() {
+        List<CompletableFuture<Boolean>> downloads = new ArrayList<>();
+        for (IDownloadableAsset asset : _diff.getAdded())
+            downloads.add(_scheduler.submit(asset, asset.getLocation(_root)));
+
+        return DownloadScheduler.all(downloads).thenApplyAsync(downloaded -> {
+            // Every version has its own natives directory, so the classifiers that did not change are extracted as well.
+            for (MCAssetPackage.DownloadableLibraryWrapper classifier : _to.getClassifiers())
+                downloaded &= _to.extractClassifier(classifier, _root);
+
+            _scheduler.getStore().ifPresent(store -> {
+                try {
+                    store.save();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            });
+
+            if (downloaded) {
+                try {
+                    LaunchPlan.of(_to).save(_root);
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            }
+
+            return downloaded;
+        }, _scheduler.getExecutor());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -> %s: %s", _from.getVersion().getId(), _to.getVersion().getId(), _diff);
+    }
+
+    /**
+     * Plans the upgrade of the installed version, using the {@link MetadataCache} and a scheduler that skips files
+     * that were verified before.
+     *
+     * @param from The installed version.
+     * @param to   The version to upgrade to.
+     * @param root The Minecraft directory the version is installed in.
+     * @return A future that completes with the planned upgrade.
+     */
+    public static CompletableFuture<VersionUpgrade> plan(IMCVersion from, IMCVersion to, File root) {
+        DownloadScheduler scheduler = new DownloadScheduler();
+        scheduler.setStore(AssetStore.open(root));
+
+        MetadataCache cache = MetadataCache.getDefault();
+        return MCAssetPackage.fromVersion(from, cache).thenCombine(MCAssetPackage.fromVersion(to, cache), (source, target) -> plan(source, target, root, scheduler))
+                .thenCompose(upgrade -> upgrade);
+    }
+
+    /**
+     * Plans the upgrade of the installed asset package. The asset indexes of both versions are read through the
+     * {@link AssetIndexCache}, which downloads the asset index of the new version if needed.
+     *
+     * @param from      The installed asset package.
+     * @param to        The asset package to upgrade to.
+     * @param root      The Minecraft directory the asset package is installed in.
+     * @param scheduler The scheduler to queue the downloads on.
+     * @return A future that completes with the planned upgrade.
+     */
+    public static CompletableFuture<VersionUpgrade> plan(MCAssetPackage from, MCAssetPackage to, File root, DownloadScheduler scheduler) {
+        AssetIndexCache indexes = AssetIndexCache.getDefault();
+        return indexes.get(from.getAssetIndex(), root, scheduler).thenCombine(indexes.get(to.getAssetIndex(), root, scheduler),
+                (source, target) -> new VersionUpgrade(from, to, root, scheduler, ContentIndex.of(from, source).diff(ContentIndex.of(to, target))));
+    }
+}
@@ -0,0 +1,155 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Represents an asset index of the Mojang database, which lists the game assets (sounds, languages, etc.) of one or more versions.
+ * To download the assets of an index without keeping all of them in memory, use {@link nl.tabuu.mclapi.mojang.AssetIndexReader}.
+ */
+public class AssetIndex {
+
+    private boolean virtual, mapToResources;
+    private List<Asset> objects = Collections.emptyList();
+
+    /**
+     * Returns true if the assets should be copied to their names in the virtual assets directory (pre-1.7 versions), otherwise false.
+     *
+     * @return True if the assets should be copied to their names in the virtual assets directory, otherwise false.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Returns true if the assets should be copied to the resources directory of the game (pre-1.6 versions), otherwise false.
+     *
+     * @return True if the assets should be copied to the resources directory of the game, otherwise false.
+     */
+    public boolean isMapToResources() {
+        return mapToResources;
+    }
+
+    /**
+     * Returns the assets of the index, in the order they are listed.
+     *
+     * @return The assets of the index.
+     */
+    public List<Asset> getObjects() {
+        return Collections.unmodifiableList(objects);
+    }
+
+    /**
+     * Represents an asset of an asset index.
+     */
+    public static class Asset {
+
+        private final String name, hash;
+        private final int size;
+
+        private Asset(String name, String hash, int size) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        /**
+         * Returns the name of the asset, e.g.: "minecraft/sounds/ambient/cave/cave1.ogg".
+         *
+         * @return The name of the asset.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the sha1-hash of the asset.
+         *
+         * @return The sha1-hash of the asset.
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Returns the byte-size of the asset.
+         *
+         * @return The byte-size of the asset.
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Reads asset index files in a single streaming pass. Asset index files are only ever read, so writing is not supported.
+     */
+    static class Adapter extends TypeAdapter<AssetIndex> {
+
+        @Override
+        public AssetIndex read(JsonReader reader) throws IOException {
+            AssetIndex index = new AssetIndex();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "virtual":
+                        index.virtual = reader.nextBoolean();
+                        break;
+                    case "map_to_resources":
+                        index.mapToResources = reader.nextBoolean();
+                        break;
+                    case "objects":
+                        index.objects = new ArrayList<>();
+                        reader.beginObject();
+                        while (reader.hasNext())
+                            index.objects.add(readAsset(reader));
+                        reader.endObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return index;
+        }
+
+        private static Asset readAsset(JsonReader reader) throws IOException {
+            String name = reader.nextName(), hash = null;
+            int size = 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "hash":
+                        hash = MojangJson.nextString(reader);
+                        break;
+                    case "size":
+                        size = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (Objects.isNull(hash))
+                throw new IOException("Asset index entry without hash at " + reader.getPath());
+
+            return new Asset(name, hash, size);
+        }
+
+        @Override
+        public void write(JsonWriter writer, AssetIndex index) {
+            throw new UnsupportedOperationException("Asset index files are read-only");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Holds the {@link Gson} instance shared by everything that reads the json metadata of the Mojang database.
+ * The version manifest, version json and asset index are read by hand-written type adapters, which stream the json
+ * straight into typed objects instead of building a json tree first.
+ */
+public final class MojangJson {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(VersionManifestJson.class, new VersionManifestJson.Adapter().nullSafe())
+            .registerTypeAdapter(VersionJson.class, new VersionJson.Adapter().nullSafe())
+            .registerTypeAdapter(AssetIndex.class, new AssetIndex.Adapter().nullSafe())
+            .disableHtmlEscaping()
+            .create();
+
+    private MojangJson() {
+    }
+
+    /**
+     * Returns the shared, preconfigured {@link Gson} instance. Gson instances are thread-safe, and cache the type adapters they create.
+     *
+     * @return The shared {@link Gson} instance.
+     */
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    /**
+     * Returns the next string, or null if the next value is null.
+     */
+    static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        return reader.nextString();
+    }
+
+    /**
+     * Returns the next array of strings. A single string is read as an array containing only that string.
+     */
+    static List<String> nextStringList(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY)
+            return Collections.singletonList(nextString(reader));
+
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+            values.add(nextString(reader));
+        reader.endArray();
+
+        return values;
+    }
+
+    /**
+     * Returns the next array of rules.
+     */
+    static List<Rule> nextRules(JsonReader reader) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext())
+            rules.add(Rule.read(reader));
+        reader.endArray();
+
+        return rules;
+    }
+}
@@ -0,0 +1,127 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents a rule of a library or argument in a version json, e.g.: {"action": "allow", "os": {"name": "osx"}}.
+ * A rule applies if the operating system and all features match, and then allows or disallows its library or argument.
+ */
+public class Rule {
+
+    private boolean allow;
+    private String osName, osVersion, osArch;
+    private Map<String, Boolean> features = Collections.emptyMap();
+
+    /**
+     * Returns true if this rule allows its library or argument when it applies, false if it disallows it.
+     *
+     * @return True if this rule allows its library or argument when it applies, false if it disallows it.
+     */
+    public boolean isAllow() {
+        return allow;
+    }
+
+    /**
+     * Returns the name of the operating system this rule applies to, e.g.: "windows", or null if it applies to any.
+     *
+     * @return The name of the operating system this rule applies to, or null if it applies to any.
+     */
+    public String getOsName() {
+        return osName;
+    }
+
+    /**
+     * Returns the regular expression the operating system version should match, or null if it applies to any version.
+     *
+     * @return The regular expression the operating system version should match, or null if it applies to any version.
+     */
+    public String getOsVersion() {
+        return osVersion;
+    }
+
+    /**
+     * Returns the architecture this rule applies to, e.g.: "x86", or null if it applies to any.
+     *
+     * @return The architecture this rule applies to, or null if it applies to any.
+     */
+    public String getOsArch() {
+        return osArch;
+    }
+
+    /**
+     * Returns the features this rule requires, with whether each of them should be enabled.
+     *
+     * @return The features this rule requires, with whether each of them should be enabled.
+     */
+    public Map<String, Boolean> getFeatures() {
+        return Collections.unmodifiableMap(features);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Rule)) return false;
+
+        Rule rule = (Rule) other;
+        return allow == rule.allow
+                && Objects.equals(osName, rule.osName)
+                && Objects.equals(osVersion, rule.osVersion)
+                && Objects.equals(osArch, rule.osArch)
+                && features.equals(rule.features);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(allow, osName, osVersion, osArch, features);
+    }
+
+    static Rule read(JsonReader reader) throws IOException {
+        Rule rule = new Rule();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "action":
+                    rule.allow = "allow".equals(MojangJson.nextString(reader));
+                    break;
+                case "os":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "name":
+                                rule.osName = MojangJson.nextString(reader);
+                                break;
+                            case "version":
+                                rule.osVersion = MojangJson.nextString(reader);
+                                break;
+                            case "arch":
+                                rule.osArch = MojangJson.nextString(reader);
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "features":
+                    rule.features = new HashMap<>();
+                    reader.beginObject();
+                    while (reader.hasNext())
+                        rule.features.put(reader.nextName(), reader.nextBoolean());
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return rule;
+    }
+}
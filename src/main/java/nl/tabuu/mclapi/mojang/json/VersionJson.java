@@ -0,0 +1,523 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Represents a version json of the Mojang database, which describes the client, libraries, asset index and arguments of a version.
+ * Only the parts needed to install and launch a version are read.
+ */
+public class VersionJson {
+
+    private String id, type, assets, mainClass, minecraftArguments, inheritsFrom;
+    private Download client;
+    private AssetIndexReference assetIndex;
+    private List<Library> libraries = Collections.emptyList();
+    private List<Argument> jvmArguments, gameArguments;
+
+    /**
+     * Returns the id of the version, e.g.: "1.16.5".
+     *
+     * @return The id of the version.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the type of the version, e.g.: "release".
+     *
+     * @return The type of the version.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the id of the version this version is based on, which modded versions list in the "inheritsFrom" field.
+     *
+     * @return The id of the version this version is based on, or null if it is not listed.
+     */
+    public String getInheritsFrom() {
+        return inheritsFrom;
+    }
+
+    /**
+     * Returns the id of the asset index of the version, as listed in the "assets" field, e.g.: "1.16".
+     *
+     * @return The id of the asset index of the version, or null if it is not listed.
+     */
+    public String getAssets() {
+        return assets;
+    }
+
+    /**
+     * Returns the main class of the game.
+     *
+     * @return The main class of the game, or null if it is not listed.
+     */
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    /**
+     * Returns the space separated game arguments of versions that predate the "arguments" object (before 1.13).
+     *
+     * @return The space separated game arguments, or null if the version lists its arguments in the "arguments" object.
+     */
+    public String getMinecraftArguments() {
+        return minecraftArguments;
+    }
+
+    /**
+     * Returns the client download of the version.
+     *
+     * @return The client download of the version, or null if it is not listed.
+     */
+    public Download getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the asset index of the version.
+     *
+     * @return The asset index of the version, or null if it is not listed.
+     */
+    public AssetIndexReference getAssetIndex() {
+        return assetIndex;
+    }
+
+    /**
+     * Returns the libraries of the version, including the libraries that only apply on some operating systems.
+     *
+     * @return The libraries of the version.
+     */
+    public List<Library> getLibraries() {
+        return Collections.unmodifiableList(libraries);
+    }
+
+    /**
+     * Returns the arguments of the Java virtual machine.
+     *
+     * @return The arguments of the Java virtual machine, or null if the version does not list them.
+     */
+    public List<Argument> getJvmArguments() {
+        return Objects.isNull(jvmArguments) ? null : Collections.unmodifiableList(jvmArguments);
+    }
+
+    /**
+     * Returns the arguments of the game, from the "arguments" object.
+     *
+     * @return The arguments of the game, or null if the version does not list them in the "arguments" object.
+     */
+    public List<Argument> getGameArguments() {
+        return Objects.isNull(gameArguments) ? null : Collections.unmodifiableList(gameArguments);
+    }
+
+    /**
+     * Represents a downloadable file of a version json.
+     */
+    public static class Download {
+
+        private String path, sha1, url;
+        private int size;
+
+        /**
+         * Returns the path of the file relative to the libraries directory, only listed for libraries.
+         *
+         * @return The path of the file, or null if it is not listed.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the sha1-hash of the file.
+         *
+         * @return The sha1-hash of the file.
+         */
+        public String getSha1() {
+            return sha1;
+        }
+
+        /**
+         * Returns the url of the file.
+         *
+         * @return The url of the file.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the byte-size of the file.
+         *
+         * @return The byte-size of the file.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        boolean read(JsonReader reader, String name) throws IOException {
+            switch (name) {
+                case "path":
+                    path = MojangJson.nextString(reader);
+                    return true;
+                case "sha1":
+                    sha1 = MojangJson.nextString(reader);
+                    return true;
+                case "url":
+                    url = MojangJson.nextString(reader);
+                    return true;
+                case "size":
+                    size = reader.nextInt();
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        static Download read(JsonReader reader) throws IOException {
+            Download download = new Download();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!download.read(reader, reader.nextName()))
+                    reader.skipValue();
+            }
+            reader.endObject();
+
+            return download;
+        }
+    }
+
+    /**
+     * Represents the asset index entry of a version json.
+     */
+    public static class AssetIndexReference extends Download {
+
+        private String id;
+        private long totalSize;
+
+        /**
+         * Returns the id of the asset index, e.g.: "1.16". Versions that share assets share the asset index id.
+         *
+         * @return The id of the asset index.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the byte-size of all assets in the asset index together.
+         *
+         * @return The byte-size of all assets in the asset index together.
+         */
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        @Override
+        boolean read(JsonReader reader, String name) throws IOException {
+            switch (name) {
+                case "id":
+                    id = MojangJson.nextString(reader);
+                    return true;
+                case "totalSize":
+                    totalSize = reader.nextLong();
+                    return true;
+                default:
+                    return super.read(reader, name);
+            }
+        }
+
+        static AssetIndexReference read(JsonReader reader) throws IOException {
+            AssetIndexReference reference = new AssetIndexReference();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reference.read(reader, reader.nextName()))
+                    reader.skipValue();
+            }
+            reader.endObject();
+
+            return reference;
+        }
+    }
+
+    /**
+     * Represents a library of a version json.
+     */
+    public static class Library {
+
+        private String name;
+        private Download artifact;
+        private Map<String, Download> classifiers = Collections.emptyMap();
+        private Map<String, String> natives = Collections.emptyMap();
+        private List<String> extractExcludes = Collections.emptyList();
+        private List<Rule> rules = Collections.emptyList();
+
+        /**
+         * Returns the maven coordinates of the library, e.g.: "com.mojang:brigadier:1.0.17".
+         *
+         * @return The maven coordinates of the library.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the jar of the library.
+         *
+         * @return The jar of the library, or null if the library only consists of classifiers.
+         */
+        public Download getArtifact() {
+            return artifact;
+        }
+
+        /**
+         * Returns the classifiers (native jars) of the library by their name, e.g.: "natives-linux".
+         *
+         * @return The classifiers of the library by their name.
+         */
+        public Map<String, Download> getClassifiers() {
+            return Collections.unmodifiableMap(classifiers);
+        }
+
+        /**
+         * Returns the names of the classifiers of the library by operating system, e.g.: "linux" to "natives-linux".
+         *
+         * @return The names of the classifiers of the library by operating system.
+         */
+        public Map<String, String> getNatives() {
+            return Collections.unmodifiableMap(natives);
+        }
+
+        /**
+         * Returns the name prefixes of the entries that should not be extracted from the classifiers of the library.
+         *
+         * @return The name prefixes of the entries that should not be extracted.
+         */
+        public List<String> getExtractExcludes() {
+            return Collections.unmodifiableList(extractExcludes);
+        }
+
+        /**
+         * Returns the rules that decide whether the library is used.
+         *
+         * @return The rules that decide whether the library is used.
+         */
+        public List<Rule> getRules() {
+            return Collections.unmodifiableList(rules);
+        }
+
+        static Library read(JsonReader reader) throws IOException {
+            Library library = new Library();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "name":
+                        library.name = MojangJson.nextString(reader);
+                        break;
+                    case "downloads":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "artifact":
+                                    library.artifact = Download.read(reader);
+                                    break;
+                                case "classifiers":
+                                    library.classifiers = new HashMap<>();
+                                    reader.beginObject();
+                                    while (reader.hasNext())
+                                        library.classifiers.put(reader.nextName(), Download.read(reader));
+                                    reader.endObject();
+                                    break;
+                                default:
+                                    reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    case "natives":
+                        library.natives = new HashMap<>();
+                        reader.beginObject();
+                        while (reader.hasNext())
+                            library.natives.put(reader.nextName(), MojangJson.nextString(reader));
+                        reader.endObject();
+                        break;
+                    case "extract":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("exclude".equals(reader.nextName()))
+                                library.extractExcludes = MojangJson.nextStringList(reader);
+                            else
+                                reader.skipValue();
+                        }
+                        reader.endObject();
+                        break;
+                    case "rules":
+                        library.rules = MojangJson.nextRules(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return library;
+        }
+    }
+
+    /**
+     * Represents an argument of a version json. An argument consists of one or more values, which are only used if its rules allow it.
+     */
+    public static class Argument {
+
+        private List<String> values;
+        private List<Rule> rules = Collections.emptyList();
+
+        /**
+         * Returns the values of the argument, as templates containing placeholders like ${classpath}.
+         *
+         * @return The values of the argument.
+         */
+        public List<String> getValues() {
+            return Collections.unmodifiableList(values);
+        }
+
+        /**
+         * Returns the rules that decide whether the argument is used. Unconditional arguments have no rules.
+         *
+         * @return The rules that decide whether the argument is used.
+         */
+        public List<Rule> getRules() {
+            return Collections.unmodifiableList(rules);
+        }
+
+        static Argument read(JsonReader reader) throws IOException {
+            Argument argument = new Argument();
+
+            // Unconditional arguments are plain strings, conditional ones are objects with rules and one or more values.
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                argument.values = Collections.singletonList(MojangJson.nextString(reader));
+                return argument;
+            }
+
+            argument.values = Collections.emptyList();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "value":
+                        argument.values = MojangJson.nextStringList(reader);
+                        break;
+                    case "rules":
+                        argument.rules = MojangJson.nextRules(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return argument;
+        }
+
+        static List<Argument> readList(JsonReader reader) throws IOException {
+            List<Argument> arguments = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext())
+                arguments.add(read(reader));
+            reader.endArray();
+
+            return arguments;
+        }
+    }
+
+    /**
+     * Reads version json files in a single streaming pass. Version json files are only ever read, so writing is not supported.
+     */
+    static class Adapter extends TypeAdapter<VersionJson> {
+
+        @Override
+        public VersionJson read(JsonReader reader) throws IOException {
+            VersionJson version = new VersionJson();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        version.id = MojangJson.nextString(reader);
+                        break;
+                    case "type":
+                        version.type = MojangJson.nextString(reader);
+                        break;
+                    case "assets":
+                        version.assets = MojangJson.nextString(reader);
+                        break;
+                    case "inheritsFrom":
+                        version.inheritsFrom = MojangJson.nextString(reader);
+                        break;
+                    case "mainClass":
+                        version.mainClass = MojangJson.nextString(reader);
+                        break;
+                    case "minecraftArguments":
+                        version.minecraftArguments = MojangJson.nextString(reader);
+                        break;
+                    case "assetIndex":
+                        version.assetIndex = AssetIndexReference.read(reader);
+                        break;
+                    case "downloads":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("client".equals(reader.nextName()))
+                                version.client = Download.read(reader);
+                            else
+                                reader.skipValue();
+                        }
+                        reader.endObject();
+                        break;
+                    case "libraries":
+                        version.libraries = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext())
+                            version.libraries.add(Library.read(reader));
+                        reader.endArray();
+                        break;
+                    case "arguments":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "jvm":
+                                    version.jvmArguments = Argument.readList(reader);
+                                    break;
+                                case "game":
+                                    version.gameArguments = Argument.readList(reader);
+                                    break;
+                                default:
+                                    reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return version;
+        }
+
+        @Override
+        public void write(JsonWriter writer, VersionJson version) {
+            throw new UnsupportedOperationException("Version json files are read-only");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the version manifest of the Mojang database, which lists every version and the url of its version json.
+ */
+public class VersionManifestJson {
+
+    private String latestRelease, latestSnapshot;
+    private List<Version> versions = Collections.emptyList();
+
+    /**
+     * Returns the id of the latest release.
+     *
+     * @return The id of the latest release, or null if it is not listed.
+     */
+    public String getLatestRelease() {
+        return latestRelease;
+    }
+
+    /**
+     * Returns the id of the latest snapshot.
+     *
+     * @return The id of the latest snapshot, or null if it is not listed.
+     */
+    public String getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+    /**
+     * Returns the versions of the manifest, newest first.
+     *
+     * @return The versions of the manifest.
+     */
+    public List<Version> getVersions() {
+        return Collections.unmodifiableList(versions);
+    }
+
+    /**
+     * Represents a version entry of the version manifest.
+     */
+    public static class Version {
+
+        private String id, type, url, time, releaseTime;
+
+        /**
+         * Returns the id of the version, e.g.: "1.16.5".
+         *
+         * @return The id of the version.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the type of the version, e.g.: "release".
+         *
+         * @return The type of the version.
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * Returns the url of the version json.
+         *
+         * @return The url of the version json.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns the time the version json was last changed, as ISO-8601 date-time.
+         *
+         * @return The time the version json was last changed.
+         */
+        public String getTime() {
+            return time;
+        }
+
+        /**
+         * Returns the time the version was released, as ISO-8601 date-time.
+         *
+         * @return The time the version was released.
+         */
+        public String getReleaseTime() {
+            return releaseTime;
+        }
+
+        private static Version read(JsonReader reader) throws IOException {
+            Version version = new Version();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        version.id = MojangJson.nextString(reader);
+                        break;
+                    case "type":
+                        version.type = MojangJson.nextString(reader);
+                        break;
+                    case "url":
+                        version.url = MojangJson.nextString(reader);
+                        break;
+                    case "time":
+                        version.time = MojangJson.nextString(reader);
+                        break;
+                    case "releaseTime":
+                        version.releaseTime = MojangJson.nextString(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return version;
+        }
+    }
+
+    /**
+     * Reads version manifest files in a single streaming pass. Version manifest files are only ever read, so writing is not supported.
+     */
+    static class Adapter extends TypeAdapter<VersionManifestJson> {
+
+        @Override
+        public VersionManifestJson read(JsonReader reader) throws IOException {
+            VersionManifestJson manifest = new VersionManifestJson();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "latest":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "release":
+                                    manifest.latestRelease = MojangJson.nextString(reader);
+                                    break;
+                                case "snapshot":
+                                    manifest.latestSnapshot = MojangJson.nextString(reader);
+                                    break;
+                                default:
+                                    reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    case "versions":
+                        manifest.versions = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext())
+                            manifest.versions.add(Version.read(reader));
+                        reader.endArray();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return manifest;
+        }
+
+        @Override
+        public void write(JsonWriter writer, VersionManifestJson manifest) {
+            throw new UnsupportedOperationException("Version manifest files are read-only");
+        }
+    }
+}
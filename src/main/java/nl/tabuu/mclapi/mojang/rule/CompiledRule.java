@@ -0,0 +1,89 @@
+package nl.tabuu.mclapi.mojang.rule;
+
+import nl.tabuu.mclapi.mojang.json.Rule;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Represents a single rule of a version json, compiled into a predicate. The rule conforms to a context if the operating system
+ * and all features of the context match it, in which case it allows or disallows its library or argument.
+ */
+public class CompiledRule implements IRule<RuleContext> {
+
+    private static final Set<String> X86_ARCHITECTURES = Set.of("x86", "i386", "i486", "i586", "i686");
+
+    private final boolean _allow;
+    private final String _osName, _osArch;
+    private final Pattern _osVersion;
+    private final Map<String, Boolean> _features;
+
+    /**
+     * Compiles the rule. The version pattern of the rule is compiled once, here.
+     *
+     * @param rule The rule to compile.
+     */
+    public CompiledRule(Rule rule) {
+        _allow = rule.isAllow();
+        _osName = rule.getOsName();
+        _osArch = rule.getOsArch();
+        _osVersion = compile(rule.getOsVersion());
+        _features = Map.copyOf(rule.getFeatures());
+    }
+
+    /**
+     * Returns true if this rule allows its library or argument when it conforms, false if it disallows it.
+     *
+     * @return True if this rule allows its library or argument when it conforms, false if it disallows it.
+     */
+    public boolean isAllow() {
+        return _allow;
+    }
+
+    @Override
+    public boolean conforms(RuleContext context) {
+        if (Objects.nonNull(_osName) && !_osName.equals(context.getOperatingSystem().getMinecraftId()))
+            return false;
+
+        if (Objects.nonNull(_osVersion)) {
+            String version = context.getOperatingSystem().getVersion();
+            if (Objects.isNull(version) || !_osVersion.matcher(version).find())
+                return false;
+        }
+
+        if (Objects.nonNull(_osArch) && !matchesArchitecture(context.getOperatingSystem().getArchitecture()))
+            return false;
+
+        for (Map.Entry<String, Boolean> feature : _features.entrySet()) {
+            if (context.hasFeature(feature.getKey()) != feature.getValue())
+                return false;
+        }
+
+        return true;
+    }
+
+    private boolean matchesArchitecture(String architecture) {
+        if (Objects.isNull(architecture)) return false;
+
+        String normalized = architecture.toLowerCase(Locale.ROOT);
+        // Mojang uses "x86" for 32-bit x86 only, which Java reports under several names.
+        if ("x86".equals(_osArch)) return X86_ARCHITECTURES.contains(normalized);
+
+        return _osArch.equalsIgnoreCase(normalized);
+    }
+
+    private static Pattern compile(String regex) {
+        if (Objects.isNull(regex)) return null;
+
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException exception) {
+            // A pattern that cannot be compiled is matched literally, rather than failing the whole version.
+            return Pattern.compile(Pattern.quote(regex));
+        }
+    }
+}
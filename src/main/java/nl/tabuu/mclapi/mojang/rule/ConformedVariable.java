@@ -1,14 +1,23 @@
 package nl.tabuu.mclapi.mojang.rule;
 
-import java.util.Arrays;
+import nl.tabuu.mclapi.mojang.json.Rule;
 
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents a value that only applies if all of its rules conform, e.g.: a library or argument of a version json.
+ *
+ * @param <T> The type of the value.
+ * @param <C> The type the rules are evaluated against.
+ */
 public class ConformedVariable<T, C> {
 
     private final T _value;
     private final IRule<C>[] _rules;
 
     @SafeVarargs
-    private ConformedVariable(T value, IRule<C>... rules) {
+    public ConformedVariable(T value, IRule<C>... rules) {
         _value = value;
         _rules = rules;
     }
@@ -21,13 +30,15 @@ public class ConformedVariable<T, C> {
         return _value;
     }
 
-    public class RuleWrapper implements IRule<T> {
-
-        private String action;
-
-        @Override
-        public boolean conforms(T value) {
-            return false;
-        }
+    /**
+     * Returns the value with the rules of a version json.
+     *
+     * @param value The value.
+     * @param rules The rules of the value.
+     * @param <T>   The type of the value.
+     * @return The value with the compiled rules.
+     */
+    public static <T> ConformedVariable<T, RuleContext> of(T value, List<Rule> rules) {
+        return new ConformedVariable<>(value, RuleSet.compile(rules));
     }
 }
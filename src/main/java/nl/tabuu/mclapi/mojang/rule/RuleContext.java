@@ -0,0 +1,85 @@
+package nl.tabuu.mclapi.mojang.rule;
+
+import nl.tabuu.mclapi.util.os.OperatingSystem;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents what the rules of a version json are evaluated against: an operating system and the enabled features,
+ * e.g.: "has_custom_resolution".
+ */
+public class RuleContext {
+
+    private static RuleContext CURRENT;
+
+    private final OperatingSystem _operatingSystem;
+    private final Set<String> _features;
+
+    public RuleContext(OperatingSystem operatingSystem, Set<String> features) {
+        _operatingSystem = Objects.requireNonNull(operatingSystem);
+        _features = Set.copyOf(features);
+    }
+
+    public RuleContext(OperatingSystem operatingSystem) {
+        this(operatingSystem, Collections.emptySet());
+    }
+
+    /**
+     * Returns the operating system the rules are evaluated against.
+     *
+     * @return The operating system the rules are evaluated against.
+     */
+    public OperatingSystem getOperatingSystem() {
+        return _operatingSystem;
+    }
+
+    /**
+     * Returns the enabled features.
+     *
+     * @return The enabled features.
+     */
+    public Set<String> getFeatures() {
+        return _features;
+    }
+
+    /**
+     * Returns true if the feature is enabled, otherwise false.
+     *
+     * @param feature The name of the feature, e.g.: "is_demo_user".
+     * @return True if the feature is enabled, otherwise false.
+     */
+    public boolean hasFeature(String feature) {
+        return _features.contains(feature);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof RuleContext)) return false;
+
+        RuleContext context = (RuleContext) other;
+        return _operatingSystem.getMinecraftId().equals(context._operatingSystem.getMinecraftId())
+                && Objects.equals(_operatingSystem.getVersion(), context._operatingSystem.getVersion())
+                && Objects.equals(_operatingSystem.getArchitecture(), context._operatingSystem.getArchitecture())
+                && _features.equals(context._features);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_operatingSystem.getMinecraftId(), _operatingSystem.getVersion(), _operatingSystem.getArchitecture(), _features);
+    }
+
+    /**
+     * Returns the context of the current operating system, without any features enabled.
+     *
+     * @return The context of the current operating system.
+     */
+    public static synchronized RuleContext getCurrent() {
+        if (Objects.isNull(CURRENT))
+            CURRENT = new RuleContext(OperatingSystem.getCurrent());
+
+        return CURRENT;
+    }
+}
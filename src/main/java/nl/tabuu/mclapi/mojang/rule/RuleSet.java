@@ -0,0 +1,67 @@
+package nl.tabuu.mclapi.mojang.rule;
+
+import nl.tabuu.mclapi.mojang.json.Rule;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the compiled rules of a library or argument of a version json. The rules are evaluated in order, and the last
+ * rule that conforms to the context decides whether the library or argument is allowed. Without any rules, everything is allowed;
+ * with rules, nothing is allowed unless a rule allows it.
+ * <p>
+ * Compiled rule sets are shared by all libraries and arguments with the same rules, and remember their result per context,
+ * so every distinct set of rules is compiled and evaluated only once.
+ */
+public class RuleSet implements IRule<RuleContext> {
+
+    private static final RuleSet ALLOW_ALL = new RuleSet(new CompiledRule[0]);
+
+    // Version json files only contain a few dozen distinct sets of rules, so the cache is not bounded.
+    private static final Map<List<Rule>, RuleSet> COMPILED = new ConcurrentHashMap<>();
+
+    private final CompiledRule[] _rules;
+    private final Map<RuleContext, Boolean> _results;
+
+    private RuleSet(CompiledRule[] rules) {
+        _rules = rules;
+        _results = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns true if the rules allow the library or argument in the context, otherwise false.
+     *
+     * @param context The context to evaluate the rules against.
+     * @return True if the rules allow the library or argument in the context, otherwise false.
+     */
+    @Override
+    public boolean conforms(RuleContext context) {
+        if (_rules.length == 0) return true;
+        return _results.computeIfAbsent(context, this::evaluate);
+    }
+
+    private boolean evaluate(RuleContext context) {
+        boolean allowed = false;
+        for (CompiledRule rule : _rules) {
+            if (rule.conforms(context))
+                allowed = rule.isAllow();
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Returns the compiled rule set of the rules. Equal lists of rules share the same compiled rule set.
+     *
+     * @param rules The rules to compile.
+     * @return The compiled rule set of the rules.
+     */
+    public static RuleSet compile(List<Rule> rules) {
+        if (rules.isEmpty()) return ALLOW_ALL;
+
+        return COMPILED.computeIfAbsent(List.copyOf(rules), key -> new RuleSet(key.stream()
+                .map(CompiledRule::new)
+                .toArray(CompiledRule[]::new)));
+    }
+}
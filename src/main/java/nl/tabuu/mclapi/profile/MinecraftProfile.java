@@ -0,0 +1,56 @@
+package nl.tabuu.mclapi.profile;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Represents a Minecraft profile as returned by the Minecraft services.
+ */
+public class MinecraftProfile implements IMinecraftProfile {
+
+    private final UUID _userId;
+    private final String _userName, _skinUrl;
+
+    public MinecraftProfile(UUID userId, String userName, String skinUrl) {
+        _userId = Objects.requireNonNull(userId);
+        _userName = Objects.requireNonNull(userName);
+        _skinUrl = skinUrl;
+    }
+
+    @Override
+    public UUID getUserId() {
+        return _userId;
+    }
+
+    @Override
+    public String getSkinUrl() {
+        return _skinUrl;
+    }
+
+    @Override
+    public String getUserName() {
+        return _userName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof MinecraftProfile)) return false;
+
+        MinecraftProfile profile = (MinecraftProfile) other;
+        return _userId.equals(profile._userId) && _userName.equals(profile._userName) && Objects.equals(_skinUrl, profile._skinUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_userId, _userName, _skinUrl);
+    }
+
+    @Override
+    public String toString() {
+        return "MinecraftProfile{" +
+                "userId=" + _userId +
+                ", userName='" + _userName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,196 @@
+package nl.tabuu.mclapi.profile;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Caches Minecraft profiles by the access token they were requested with and by their uuid.
+ * Profiles are evicted once they are older than the time to live. Concurrent requests for the profile of the same
+ * access token share one request.
+ */
+public class ProfileCache {
+
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+    private static final int EVICTION_INTERVAL = 64;
+
+    private static ProfileCache DEFAULT;
+
+    private final Map<String, Entry> _byAccessToken;
+    private final Map<UUID, Entry> _byUserId;
+    private final Map<String, CompletableFuture<IMinecraftProfile>> _pending;
+    private final AtomicInteger _puts;
+    private volatile Duration _timeToLive;
+
+    public ProfileCache(Duration timeToLive) {
+        _byAccessToken = new ConcurrentHashMap<>();
+        _byUserId = new ConcurrentHashMap<>();
+        _pending = new ConcurrentHashMap<>();
+        _puts = new AtomicInteger();
+        _timeToLive = Objects.requireNonNull(timeToLive);
+    }
+
+    public ProfileCache() {
+        this(DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Returns the time a profile is kept in the cache.
+     *
+     * @return The time a profile is kept in the cache.
+     */
+    public Duration getTimeToLive() {
+        return _timeToLive;
+    }
+
+    /**
+     * Sets the time a profile is kept in the cache.
+     *
+     * @param timeToLive The time a profile is kept in the cache.
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        _timeToLive = Objects.requireNonNull(timeToLive);
+    }
+
+    /**
+     * Returns the profile of the access token. The cached profile is returned if there is one,
+     * otherwise the profile is loaded with the provided loader, sharing the load with concurrent calls.
+     * Failed loads are not cached.
+     *
+     * @param accessToken The access token the profile belongs to.
+     * @param loader      The function that requests the profile of the access token.
+     * @return A future that completes with the profile of the access token.
+     */
+    public CompletableFuture<IMinecraftProfile> get(String accessToken, Function<String, CompletableFuture<IMinecraftProfile>> loader) {
+        Optional<IMinecraftProfile> cached = get(accessToken);
+        if (cached.isPresent()) return CompletableFuture.completedFuture(cached.get());
+
+        CompletableFuture<IMinecraftProfile> created = new CompletableFuture<>();
+        CompletableFuture<IMinecraftProfile> pending = _pending.putIfAbsent(accessToken, created);
+        if (Objects.nonNull(pending)) return pending;
+
+        CompletableFuture<IMinecraftProfile> load;
+        try {
+            load = loader.apply(accessToken);
+        } catch (RuntimeException exception) {
+            load = CompletableFuture.failedFuture(exception);
+        }
+
+        load.whenComplete((profile, throwable) -> {
+            if (Objects.isNull(throwable)) put(accessToken, profile);
+            _pending.remove(accessToken, created);
+
+            if (Objects.isNull(throwable)) created.complete(profile);
+            else created.completeExceptionally(throwable);
+        });
+
+        return created;
+    }
+
+    /**
+     * Returns an optional containing the cached profile of the access token, if there is one.
+     *
+     * @param accessToken The access token the profile belongs to.
+     * @return An optional containing the cached profile of the access token, if there is one.
+     */
+    public Optional<IMinecraftProfile> get(String accessToken) {
+        return get(_byAccessToken, accessToken);
+    }
+
+    /**
+     * Returns an optional containing the cached profile with the uuid, if there is one.
+     *
+     * @param userId The uuid of the profile.
+     * @return An optional containing the cached profile with the uuid, if there is one.
+     */
+    public Optional<IMinecraftProfile> get(UUID userId) {
+        return get(_byUserId, userId);
+    }
+
+    /**
+     * Caches the profile of the access token. Every so many profiles, the profiles that are older than the time to live are evicted.
+     *
+     * @param accessToken The access token the profile belongs to.
+     * @param profile     The profile to cache.
+     */
+    public void put(String accessToken, IMinecraftProfile profile) {
+        Entry entry = new Entry(profile, System.nanoTime());
+        _byAccessToken.put(accessToken, entry);
+        _byUserId.put(profile.getUserId(), entry);
+
+        if (_puts.incrementAndGet() % EVICTION_INTERVAL == 0)
+            evictExpired();
+    }
+
+    /**
+     * Removes the profile of the access token from the cache.
+     *
+     * @param accessToken The access token the profile belongs to.
+     */
+    public void invalidate(String accessToken) {
+        Entry entry = _byAccessToken.remove(accessToken);
+        if (Objects.nonNull(entry))
+            _byUserId.remove(entry.profile.getUserId(), entry);
+    }
+
+    /**
+     * Removes the profiles that are older than the time to live.
+     */
+    public void evictExpired() {
+        _byAccessToken.values().removeIf(this::isExpired);
+        _byUserId.values().removeIf(this::isExpired);
+    }
+
+    private <K> Optional<IMinecraftProfile> get(Map<K, Entry> entries, K key) {
+        Entry entry = entries.get(key);
+        if (Objects.isNull(entry)) return Optional.empty();
+
+        if (isExpired(entry)) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+
+        return Optional.of(entry.profile);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.nanoTime() - entry.cached >= _timeToLive.toNanos();
+    }
+
+    /**
+     * Returns the cache shared by all sessions.
+     *
+     * @return The cache shared by all sessions.
+     */
+    public static synchronized ProfileCache getDefault() {
+        if (Objects.isNull(DEFAULT))
+            DEFAULT = new ProfileCache();
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the cache shared by all sessions.
+     *
+     * @param cache The new default cache.
+     */
+    public static synchronized void setDefault(ProfileCache cache) {
+        DEFAULT = Objects.requireNonNull(cache);
+    }
+
+    private static class Entry {
+        private final IMinecraftProfile profile;
+        private final long cached;
+
+        private Entry(IMinecraftProfile profile, long cached) {
+            this.profile = profile;
+            this.cached = cached;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nl.tabuu.mclapi.util;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Represents a pool of equally sized byte buffers, so large (direct) buffers are not allocated for every use.
+ */
+public class BufferPool {
+
+    private final int _bufferSize;
+    private final boolean _direct;
+    private final Queue<ByteBuffer> _buffers;
+
+    /**
+     * Creates a pool of buffers with the provided size.
+     *
+     * @param bufferSize The capacity of the buffers in this pool.
+     * @param direct     True if the buffers should be allocated outside of the heap, otherwise false.
+     */
+    public BufferPool(int bufferSize, boolean direct) {
+        _bufferSize = bufferSize;
+        _direct = direct;
+        _buffers = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns the capacity of the buffers in this pool.
+     *
+     * @return The capacity of the buffers in this pool.
+     */
+    public int getBufferSize() {
+        return _bufferSize;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating a new one if the pool is empty.
+     *
+     * @return A cleared buffer.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = _buffers.poll();
+        if (Objects.isNull(buffer))
+            buffer = _direct ? ByteBuffer.allocateDirect(_bufferSize) : ByteBuffer.allocate(_bufferSize);
+
+        return buffer.clear();
+    }
+
+    /**
+     * Returns the buffer to the pool. The buffer must not be used after it was released.
+     *
+     * @param buffer The buffer to return to the pool.
+     */
+    public void release(ByteBuffer buffer) {
+        if (Objects.nonNull(buffer) && buffer.capacity() == _bufferSize && buffer.isDirect() == _direct)
+            _buffers.offer(buffer);
+    }
+}
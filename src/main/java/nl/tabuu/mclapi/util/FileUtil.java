@@ -1,82 +1,241 @@
 package nl.tabuu.mclapi.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Iterator;
 import java.util.Objects;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 public class FileUtil {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int MAP_THRESHOLD = 1 << 20, MAP_CHUNK_SIZE = 1 << 26, EXTRACT_BUFFER_SIZE = 1 << 16;
+    private static final BufferPool HASH_BUFFERS = new BufferPool(MAP_THRESHOLD, true);
+
     public static String getSha1(File file) throws IOException, NoSuchAlgorithmException {
         if (!file.exists()) return null;
 
-        MessageDigest digest = MessageDigest.getInstance("SHA-1");
-        InputStream fis = new FileInputStream(file);
-        int n = 0;
-        byte[] buffer = new byte[8192];
-        while (n != -1) {
-            n = fis.read(buffer);
-            if (n > 0) {
-                digest.update(buffer, 0, n);
+        return toHex(getSha1Digest(file));
+    }
+
+    /**
+     * Returns the raw sha1-digest of the file. Small files are read through a pooled direct buffer,
+     * large files are memory-mapped, so no heap buffers are allocated per file.
+     *
+     * @param file The file to hash.
+     * @return The raw sha1-digest of the file.
+     * @throws IOException If the file could not be read.
+     */
+    public static byte[] getSha1Digest(File file) throws IOException {
+        MessageDigest digest = createSha1Digest();
+        updateDigest(digest, file, Long.MAX_VALUE);
+        return digest.digest();
+    }
+
+    /**
+     * Updates the digest with the first bytes of the file.
+     *
+     * @param digest The digest to update.
+     * @param file   The file to read.
+     * @param length The maximum amount of bytes to read from the start of the file.
+     * @throws IOException If the file could not be read.
+     */
+    public static void updateDigest(MessageDigest digest, File file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), length);
+
+            if (size < MAP_THRESHOLD) {
+                ByteBuffer buffer = HASH_BUFFERS.acquire();
+                try {
+                    buffer.limit((int) size);
+
+                    int read;
+                    do {
+                        read = channel.read(buffer);
+                    } while (read != -1 && buffer.hasRemaining());
+
+                    buffer.flip();
+                    digest.update(buffer);
+                } finally {
+                    HASH_BUFFERS.release(buffer);
+                }
+            } else {
+                for (long position = 0; position < size; position += MAP_CHUNK_SIZE) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK_SIZE, size - position));
+                    digest.update(mapped);
+                }
             }
         }
+    }
+
+    /**
+     * Returns true if the file exists and its sha1-hash equals the provided hash, otherwise false.
+     * The hashes are compared as raw bytes.
+     *
+     * @param file The file to check.
+     * @param hash The expected sha1-hash, in hexadecimal notation.
+     * @return True if the file exists and its sha1-hash equals the provided hash, otherwise false.
+     * @throws IOException If the file could not be read.
+     */
+    public static boolean matchesSha1(File file, String hash) throws IOException {
+        if (!file.isFile() || Objects.isNull(hash)) return false;
+
+        return MessageDigest.isEqual(getSha1Digest(file), fromHex(hash));
+    }
+
+    /**
+     * Returns a new sha1 message digest.
+     *
+     * @return A new sha1 message digest.
+     */
+    public static MessageDigest createSha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("Every Java platform is required to support SHA-1", exception);
+        }
+    }
+
+    /**
+     * Returns the hexadecimal notation of the bytes.
+     *
+     * @param bytes The bytes to convert.
+     * @return The hexadecimal notation of the bytes.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+
+        return new String(hex);
+    }
+
+    /**
+     * Returns the bytes represented by the hexadecimal notation.
+     *
+     * @param hex The hexadecimal notation to convert.
+     * @return The bytes represented by the hexadecimal notation.
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0)
+            throw new IllegalArgumentException("Invalid hexadecimal string: " + hex);
+
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0)
+                throw new IllegalArgumentException("Invalid hexadecimal string: " + hex);
 
-        byte[] byteData = digest.digest();
+            bytes[i] = (byte) ((high << 4) | low);
+        }
 
-        StringBuilder hex = new StringBuilder();
-        for (byte datum : byteData)
-            hex.append(Integer.toString((datum & 0xFF) + 0x100, 16).substring(1));
+        return bytes;
+    }
 
+    /**
+     * Copies the file to the target. The copy is written next to the target and then moved over it,
+     * so the target is never left partially written.
+     *
+     * @param source The file to copy.
+     * @param target The file to copy to.
+     * @throws IOException If the file could not be copied.
+     */
+    public static void copy(File source, File target) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+            throw new IOException("Failed to create directory " + parent);
 
-        return hex.toString();
+        Path temporary = Files.createTempFile(parent.toPath(), target.getName(), ".tmp");
+        try {
+            Files.copy(source.toPath(), temporary, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temporary, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
     }
 
     public static void unzip(File zipFile, File destination) throws IOException {
-        byte[] buffer = new byte[1024];
-        ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile));
-        ZipEntry zipEntry = zis.getNextEntry();
-        while (zipEntry != null) {
-            File newFile = newFile(destination, zipEntry);
-            if (zipEntry.isDirectory()) {
-                if (!newFile.isDirectory() && !newFile.mkdirs()) {
-                    throw new IOException("Failed to create directory " + newFile);
+        extract(zipFile, destination, Collections.emptyList());
+    }
+
+    /**
+     * Extracts the archive to the destination directory. Entries of which the name starts with one of the excluded
+     * prefixes are skipped, as are entries that are already present with a matching size and crc.
+     *
+     * @param zipFile     The archive to extract.
+     * @param destination The directory to extract the archive to.
+     * @param excludes    The name prefixes of the entries that should not be extracted, e.g. "META-INF/".
+     * @throws IOException If the archive could not be read, or an entry could not be written.
+     */
+    public static void extract(File zipFile, File destination, Collection<String> excludes) throws IOException {
+        Path destinationPath = destination.toPath().toAbsolutePath().normalize();
+        byte[] buffer = new byte[EXTRACT_BUFFER_SIZE];
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (excludes.stream().anyMatch(entry.getName()::startsWith)) continue;
+
+                Path path = destinationPath.resolve(entry.getName()).normalize();
+                if (!path.startsWith(destinationPath) || path.equals(destinationPath))
+                    throw new IOException("Entry is outside of the target dir: " + entry.getName());
+
+                File file = path.toFile();
+                if (entry.isDirectory()) {
+                    if (!file.isDirectory() && !file.mkdirs())
+                        throw new IOException("Failed to create directory " + file);
+                    continue;
                 }
-            } else {
+
+                if (isExtracted(file, entry, buffer)) continue;
+
                 // fix for Windows-created archives
-                File parent = newFile.getParentFile();
-                if (!parent.isDirectory() && !parent.mkdirs()) {
+                File parent = file.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs())
                     throw new IOException("Failed to create directory " + parent);
-                }
 
-                // write file content
-                FileOutputStream fos = new FileOutputStream(newFile);
-                int len;
-                while ((len = zis.read(buffer)) > 0) {
-                    fos.write(buffer, 0, len);
+                try (InputStream in = zip.getInputStream(entry);
+                     OutputStream out = new FileOutputStream(file)) {
+                    int length;
+                    while ((length = in.read(buffer)) > 0)
+                        out.write(buffer, 0, length);
                 }
-                fos.close();
             }
-            zipEntry = zis.getNextEntry();
         }
-        zis.closeEntry();
-        zis.close();
     }
 
-    private static File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
-        File destFile = new File(destinationDir, zipEntry.getName());
-
-        String destDirPath = destinationDir.getCanonicalPath();
-        String destFilePath = destFile.getCanonicalPath();
+    private static boolean isExtracted(File file, ZipEntry entry, byte[] buffer) throws IOException {
+        if (!file.isFile() || entry.getSize() < 0 || entry.getCrc() < 0 || file.length() != entry.getSize())
+            return false;
 
-        if (!destFilePath.startsWith(destDirPath + File.separator)) {
-            throw new IOException("Entry is outside of the target dir: " + zipEntry.getName());
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(file)) {
+            int length;
+            while ((length = in.read(buffer)) > 0)
+                crc.update(buffer, 0, length);
         }
 
-        return destFile;
+        return crc.getValue() == entry.getCrc();
     }
 }
\ No newline at end of file
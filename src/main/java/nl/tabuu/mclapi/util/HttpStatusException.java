@@ -0,0 +1,27 @@
+package nl.tabuu.mclapi.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a web service answers with a status code that is not successful.
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int _status;
+
+    public HttpStatusException(String uri, int status) {
+        super(String.format("%s returned status %d", uri, status));
+        _status = status;
+    }
+
+    /**
+     * Returns the status code of the response.
+     *
+     * @return The status code of the response.
+     */
+    public int getStatus() {
+        return _status;
+    }
+}
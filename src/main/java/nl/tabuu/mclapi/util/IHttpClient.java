@@ -0,0 +1,44 @@
+package nl.tabuu.mclapi.util;
+
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the json requests of the Mojang and Microsoft web services.
+ */
+public interface IHttpClient {
+
+    /**
+     * Sends the request, and returns the status code of the response.
+     *
+     * @param uri     The uri to send the request to.
+     * @param method  The method of the request.
+     * @param headers The headers of the request, or null.
+     * @param body    The json body of the request, or null.
+     * @return A future that completes with the status code of the response.
+     */
+    CompletableFuture<Integer> send(String uri, String method, Map<String, String> headers, JsonObject body);
+
+    /**
+     * Sends the request, and returns the json body of the response.
+     * The future completes exceptionally with a {@link HttpStatusException} if the response is not successful.
+     *
+     * @param uri     The uri to send the request to.
+     * @param method  The method of the request.
+     * @param headers The headers of the request, or null.
+     * @param body    The json body of the request, or null.
+     * @return A future that completes with the json body of the response.
+     */
+    CompletableFuture<JsonObject> sendJson(String uri, String method, Map<String, String> headers, JsonObject body);
+
+    /**
+     * Returns the client used when no client is provided.
+     *
+     * @return The client used when no client is provided.
+     */
+    static IHttpClient getDefault() {
+        return JsonHttpClient.getDefault();
+    }
+}
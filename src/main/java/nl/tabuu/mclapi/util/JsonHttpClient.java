@@ -0,0 +1,277 @@
+package nl.tabuu.mclapi.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Sends json requests over a shared, connection-pooled {@link HttpClient}.
+ * Response bodies are parsed while they stream in, requests to a host can be rate limited,
+ * and throttled or failed requests are retried.
+ */
+public class JsonHttpClient implements IHttpClient {
+
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+    private static final Duration
+            CONNECT_TIME_OUT = Duration.ofSeconds(10),
+            REQUEST_TIME_OUT = Duration.ofSeconds(30);
+
+    private static JsonHttpClient DEFAULT;
+
+    private final HttpClient _client;
+    private final Executor _executor;
+    private final Duration _timeout;
+    private final int _maxRetries;
+    private final Map<String, TokenBucket> _rateLimits;
+
+    /**
+     * Creates a client on top of the provided {@link HttpClient}.
+     *
+     * @param client     The client to send the requests with.
+     * @param executor   The executor to parse the response bodies on.
+     * @param timeout    The maximum time a single request may take.
+     * @param maxRetries The maximum amount of times a throttled or failed request is retried.
+     */
+    public JsonHttpClient(HttpClient client, Executor executor, Duration timeout, int maxRetries) {
+        _client = Objects.requireNonNull(client);
+        _executor = Objects.requireNonNull(executor);
+        _timeout = Objects.requireNonNull(timeout);
+        _maxRetries = maxRetries;
+        _rateLimits = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a client that runs its requests and parses its responses on the provided executor.
+     *
+     * @param executor The executor to run the requests on.
+     */
+    public JsonHttpClient(Executor executor) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(CONNECT_TIME_OUT)
+                .executor(executor)
+                .build(), executor, REQUEST_TIME_OUT, DEFAULT_MAX_RETRIES);
+    }
+
+    public JsonHttpClient() {
+        // Idle threads of a cached pool die off, so the pool does not have to be shut down.
+        this(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mclapi-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Returns the client the requests are sent with.
+     *
+     * @return The client the requests are sent with.
+     */
+    public HttpClient getClient() {
+        return _client;
+    }
+
+    /**
+     * Limits the rate of requests to the host. Requests over the limit are delayed rather than rejected.
+     * If the host answers with status 429, its requests are paused for the duration given in the Retry-After header.
+     *
+     * @param host              The host to limit the requests to, e.g.: "api.minecraftservices.com".
+     * @param requestsPerSecond The rate at which requests can be sent to the host.
+     * @param burst             The amount of requests that can be sent at once.
+     */
+    public void setRateLimit(String host, double requestsPerSecond, int burst) {
+        _rateLimits.put(host.toLowerCase(Locale.ROOT), new TokenBucket(requestsPerSecond, burst));
+    }
+
+    /**
+     * Removes the rate limit of the host.
+     *
+     * @param host The host to remove the rate limit of.
+     */
+    public void removeRateLimit(String host) {
+        _rateLimits.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public CompletableFuture<Integer> send(String uri, String method, Map<String, String> headers, JsonObject body) {
+        return request(uri, method, headers, body, HttpResponse.BodyHandlers.discarding(), 0)
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    @Override
+    public CompletableFuture<JsonObject> sendJson(String uri, String method, Map<String, String> headers, JsonObject body) {
+        // Reading the stream blocks until the body arrived, so it is parsed on the executor rather than on the client's threads.
+        return request(uri, method, headers, body, HttpResponse.BodyHandlers.ofInputStream(), 0).thenApplyAsync(response -> {
+            try (InputStream stream = response.body()) {
+                if (response.statusCode() > 299)
+                    throw new HttpStatusException(uri, response.statusCode());
+
+                Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+                return JsonParser.parseReader(reader).getAsJsonObject();
+            } catch (IOException exception) {
+                throw new CompletionException(exception);
+            }
+        }, _executor);
+    }
+
+    /**
+     * Sends the request once the rate limit of the host allows it. Requests answered with status 429, or with status 503
+     * and a Retry-After header, are retried after the requested time. Idempotent requests that failed to connect are
+     * retried with an exponential backoff.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> request(String uri, String method, Map<String, String> headers, JsonObject body, HttpResponse.BodyHandler<T> handler, int attempt) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(_timeout)
+                .method(method, Objects.isNull(body)
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8));
+
+        if (Objects.nonNull(headers))
+            headers.forEach(builder::header);
+
+        HttpRequest request = builder.build();
+        TokenBucket bucket = _rateLimits.get(getHost(request.uri()));
+        CompletableFuture<HttpResponse<T>> response = Objects.isNull(bucket)
+                ? _client.sendAsync(request, handler)
+                : CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(bucket.reserve(), TimeUnit.NANOSECONDS, _executor))
+                        .thenCompose(ignored -> _client.sendAsync(request, handler));
+
+        return response.handle((result, throwable) -> {
+            if (attempt >= _maxRetries)
+                return Objects.isNull(throwable) ? CompletableFuture.completedFuture(result) : CompletableFuture.<HttpResponse<T>>failedFuture(throwable);
+
+            Duration wait;
+            if (Objects.nonNull(throwable)) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+                // A request that failed halfway may have been processed, so only idempotent requests are sent again,
+                // unless the connection was never made.
+                boolean retry = cause instanceof ConnectException
+                        || cause instanceof IOException && IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT));
+                if (!retry)
+                    return CompletableFuture.<HttpResponse<T>>failedFuture(throwable);
+
+                wait = Duration.ofMillis(250L << attempt);
+            } else {
+                Optional<Duration> retryAfter = result.headers().firstValue("Retry-After").map(JsonHttpClient::getRetryAfter);
+                boolean throttled = result.statusCode() == 429 || result.statusCode() == 503 && retryAfter.isPresent();
+                if (!throttled)
+                    return CompletableFuture.completedFuture(result);
+
+                close(result.body());
+                wait = retryAfter.orElse(Duration.ofSeconds(1L << attempt));
+            }
+
+            if (Objects.nonNull(bucket) && Objects.nonNull(result)) {
+                // Pausing the bucket also holds back the other requests to the host, instead of letting them run into the limit too.
+                bucket.pause(wait);
+                return request(uri, method, headers, body, handler, attempt + 1);
+            }
+
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait.toNanos(), TimeUnit.NANOSECONDS, _executor))
+                    .thenCompose(ignored -> request(uri, method, headers, body, handler, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Parses a Retry-After header, which is either an amount of seconds or a http date.
+     */
+    private static Duration getRetryAfter(String value) {
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException exception) {
+            try {
+                Duration wait = Duration.between(Instant.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (DateTimeParseException invalid) {
+                return null;
+            }
+        }
+    }
+
+    private static void close(Object body) {
+        if (!(body instanceof Closeable)) return;
+
+        try {
+            ((Closeable) body).close();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    private static String getHost(URI uri) {
+        return Objects.isNull(uri.getHost()) ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the uri with the url-encoded parameters appended as query.
+     *
+     * @param uri        The uri without query.
+     * @param parameters The parameters to append.
+     * @return The uri with the parameters appended as query.
+     */
+    public static String getParameterizedUri(String uri, Map<String, String> parameters) {
+        StringBuilder result = new StringBuilder(uri);
+
+        int index = 0;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            result.append(index > 0 ? "&" : "?");
+
+            result.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
+            result.append("=");
+            result.append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+
+            index++;
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Returns the client shared by the authenticators, the metadata cache and the transfer engine.
+     *
+     * @return The client shared by the authenticators, the metadata cache and the transfer engine.
+     */
+    public static synchronized JsonHttpClient getDefault() {
+        if (Objects.isNull(DEFAULT)) {
+            DEFAULT = new JsonHttpClient();
+
+            // Mojang documents a limit of 600 requests per 10 minutes for the authentication server.
+            DEFAULT.setRateLimit("authserver.mojang.com", 1, 10);
+        }
+
+        return DEFAULT;
+    }
+
+    /**
+     * Replaces the client shared by the authenticators, the metadata cache and the transfer engine.
+     * Components that were created before keep using the previous client.
+     *
+     * @param client The new default client.
+     */
+    public static synchronized void setDefault(JsonHttpClient client) {
+        DEFAULT = Objects.requireNonNull(client);
+    }
+}
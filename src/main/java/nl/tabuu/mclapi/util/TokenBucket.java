@@ -0,0 +1,66 @@
+package nl.tabuu.mclapi.util;
+
+import java.time.Duration;
+
+/**
+ * A token bucket rate limiter. Permits are reserved rather than waited for, so callers can schedule their work
+ * at the returned delay instead of blocking a thread.
+ */
+public class TokenBucket {
+
+    private final double _permitsPerNano, _capacity;
+
+    private double _available;
+    private long _updated;
+
+    /**
+     * Creates a token bucket that starts full.
+     *
+     * @param permitsPerSecond The rate at which permits are added.
+     * @param burst            The maximum amount of permits that can be used at once.
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) throw new IllegalArgumentException("The rate and burst must be positive");
+
+        _permitsPerNano = permitsPerSecond / Duration.ofSeconds(1).toNanos();
+        _capacity = burst;
+        _available = burst;
+        _updated = System.nanoTime();
+    }
+
+    /**
+     * Reserves a permit, and returns the time the caller has to wait before using it.
+     *
+     * @return The time to wait before using the permit, in nanoseconds.
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+
+        _available -= 1;
+        long debt = _available >= 0 ? 0 : (long) Math.ceil(-_available / _permitsPerNano);
+        return Math.max(0, _updated - now) + debt;
+    }
+
+    /**
+     * Stops handing out permits for the provided duration, e.g.: when a server asks to retry after some time.
+     * Permits reserved after the pause are spread out at the normal rate, instead of all being used when the pause ends.
+     *
+     * @param duration The duration to stop handing out permits for.
+     */
+    public synchronized void pause(Duration duration) {
+        long now = System.nanoTime();
+        refill(now);
+
+        _updated = Math.max(_updated, now + duration.toNanos());
+        _available = Math.min(_available, 0);
+    }
+
+    private void refill(long now) {
+        // The balance refers to the moment of the last update, which lies in the future while paused.
+        if (now <= _updated) return;
+
+        _available = Math.min(_capacity, _available + (now - _updated) * _permitsPerNano);
+        _updated = now;
+    }
+}
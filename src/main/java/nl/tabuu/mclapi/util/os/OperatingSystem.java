@@ -1,6 +1,7 @@
 package nl.tabuu.mclapi.util.os;
 
 import java.io.File;
+import java.util.Locale;
 import java.util.Objects;
 
 public class OperatingSystem {
@@ -72,7 +73,7 @@ public class OperatingSystem {
 
     public static OperatingSystem getCurrent() {
         if (Objects.isNull(CURRENT)) {
-            String name = System.getProperty("os.name");
+            String name = System.getProperty("os.name").toLowerCase(Locale.ROOT);
 
             if (name.contains("win"))
                 CURRENT = WINDOWS;
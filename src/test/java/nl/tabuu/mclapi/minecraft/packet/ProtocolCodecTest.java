@@ -0,0 +1,195 @@
+package nl.tabuu.mclapi.minecraft.packet;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProtocolCodecTest {
+
+    private static final int[] VAR_INTS = {
+            0, 1, 127, 128, 255, 25565, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE, -1, Integer.MIN_VALUE
+    };
+
+    private static final long[] VAR_LONGS = {
+            0, 1, 127, 128, 1L << 35, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE
+    };
+
+    private static final String[] STRINGS = {
+            "", "localhost", "héllo", "日本語", "😀 smile", "lone \ud800 high", "lone \udc00 low", "end \ud83d"
+    };
+
+    @Test
+    void varIntMatchesStreamImplementation() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocolCodec.MAX_VAR_INT_SIZE);
+
+        for (int value : VAR_INTS) {
+            buffer.clear();
+            ProtocolCodec.writeVarInt(buffer, value);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            ServerPingPacket.writeVarInt(value, stream);
+
+            byte[] encoded = Arrays.copyOf(buffer.array(), buffer.position());
+            assertArrayEquals(stream.toByteArray(), encoded, "encoding of " + value);
+            assertEquals(encoded.length, ProtocolCodec.getVarIntSize(value), "size of " + value);
+            assertEquals(value, ServerPingPacket.readVarInt(new ByteArrayInputStream(encoded)), "stream decoding of " + value);
+            assertEquals(value, ProtocolCodec.readVarInt(buffer.flip()), "decoding of " + value);
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void varLongRoundTrips() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(ProtocolCodec.MAX_VAR_LONG_SIZE);
+
+        for (long value : VAR_LONGS) {
+            buffer.clear();
+            ProtocolCodec.writeVarLong(buffer, value);
+            assertEquals(buffer.position(), ProtocolCodec.getVarLongSize(value), "size of " + value);
+            assertEquals(value, ProtocolCodec.readVarLong(buffer.flip()), "decoding of " + value);
+        }
+    }
+
+    @Test
+    void invalidVarIntsAreRejected() {
+        byte[] tooLong = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        assertThrows(ProtocolException.class, () -> ProtocolCodec.readVarInt(ByteBuffer.wrap(tooLong)));
+        assertThrows(IOException.class, () -> ServerPingPacket.readVarInt(new ByteArrayInputStream(tooLong)));
+
+        byte[] truncated = {(byte) 0x80, (byte) 0x80};
+        assertThrows(BufferUnderflowException.class, () -> ProtocolCodec.readVarInt(ByteBuffer.wrap(truncated)));
+        assertThrows(IOException.class, () -> ServerPingPacket.readVarInt(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    void stringsMatchJdkEncoder() throws ProtocolException {
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            for (String value : STRINGS) {
+                byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+
+                buffer.clear();
+                ProtocolCodec.writeString(buffer, value);
+                assertEquals(buffer.position(), ProtocolCodec.getStringSize(value), "size of " + value);
+
+                buffer.flip();
+                assertEquals(expected.length, ProtocolCodec.readVarInt(buffer.duplicate()));
+                assertEquals(new String(expected, StandardCharsets.UTF_8), ProtocolCodec.readString(buffer, 64));
+                assertFalse(buffer.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    void tooLongStringsAreRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        ProtocolCodec.writeString(buffer, "0123456789");
+
+        assertThrows(ProtocolException.class, () -> ProtocolCodec.readString(buffer.flip(), 5));
+    }
+
+    @Test
+    void packetsRoundTripThroughFrames() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        IPacket[] packets = {
+                new HandshakePacket(-1, "play.example.org", 25565, HandshakePacket.STATE_STATUS),
+                StatusRequestPacket.INSTANCE,
+                new StatusResponsePacket("{\"description\":\"§aHi\"}"),
+                new PingPacket(0x1234_5678_9ABCL),
+                new PongPacket(-42)
+        };
+
+        int size = 0;
+        for (IPacket packet : packets) {
+            ProtocolCodec.writePacket(buffer, packet);
+            size += ProtocolCodec.getFrameSize(packet);
+        }
+        assertEquals(size, buffer.position());
+        buffer.flip();
+
+        ByteBuffer frame = ProtocolCodec.readFrame(buffer);
+        assertEquals(HandshakePacket.ID, ProtocolCodec.readVarInt(frame));
+        HandshakePacket handshake = HandshakePacket.read(frame);
+        assertEquals(-1, handshake.getProtocolVersion());
+        assertEquals("play.example.org", handshake.getHost());
+        assertEquals(25565, handshake.getPort());
+        assertEquals(HandshakePacket.STATE_STATUS, handshake.getNextState());
+
+        frame = ProtocolCodec.readFrame(buffer);
+        assertEquals(StatusRequestPacket.ID, ProtocolCodec.readVarInt(frame));
+        assertFalse(frame.hasRemaining());
+
+        frame = ProtocolCodec.readFrame(buffer);
+        assertEquals(StatusResponsePacket.ID, ProtocolCodec.readVarInt(frame));
+        assertEquals("{\"description\":\"§aHi\"}", StatusResponsePacket.read(frame).getJson());
+
+        frame = ProtocolCodec.readFrame(buffer);
+        assertEquals(PingPacket.ID, ProtocolCodec.readVarInt(frame));
+        assertEquals(0x1234_5678_9ABCL, PingPacket.read(frame).getPayload());
+
+        frame = ProtocolCodec.readFrame(buffer);
+        assertEquals(PongPacket.ID, ProtocolCodec.readVarInt(frame));
+        assertEquals(-42, PongPacket.read(frame).getPayload());
+
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void incompleteFramesAreNotConsumed() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        ProtocolCodec.writePacket(buffer, new PingPacket(1));
+        int length = buffer.position();
+        buffer.flip();
+
+        for (int limit = 0; limit < length; limit++) {
+            ByteBuffer partial = buffer.duplicate().limit(limit);
+            assertNull(ProtocolCodec.readFrame(partial));
+            assertEquals(0, partial.position());
+        }
+
+        assertEquals(length, ProtocolCodec.getFrameLength(buffer));
+        assertNotNull(ProtocolCodec.readFrame(buffer));
+    }
+
+    @Test
+    void encodingDoesNotAllocate() throws ProtocolException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        String host = "play.éxample.org 😀";
+        long sum = codecRound(buffer, host);
+
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++)
+            sum += codecRound(buffer, host);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertNotEquals(0, sum);
+        // Allows for a few bytes of noise from the measurement itself, a single allocation per round would be megabytes.
+        assertTrue(allocated < 4096, "allocated " + allocated + " bytes");
+    }
+
+    private static long codecRound(ByteBuffer buffer, String host) throws ProtocolException {
+        buffer.clear();
+        ProtocolCodec.writeVarInt(buffer, 25565);
+        ProtocolCodec.writeVarLong(buffer, Long.MIN_VALUE);
+        ProtocolCodec.writeString(buffer, host);
+        buffer.flip();
+
+        return ProtocolCodec.readVarInt(buffer) + ProtocolCodec.readVarLong(buffer) + ProtocolCodec.getStringSize(host);
+    }
+}
@@ -0,0 +1,118 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.LaunchPlan;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.mojang.VersionManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetCollectorTest {
+
+    @TempDir
+    Path _directory;
+
+    private LocalMojangServer _server;
+    private File _root;
+    private DownloadScheduler _scheduler;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        _server = new LocalMojangServer(_directory);
+        _root = _directory.resolve("minecraft").toFile();
+        _scheduler = _server.createScheduler(_root);
+    }
+
+    @AfterEach
+    void stopServer() {
+        _server.close();
+    }
+
+    @Test
+    void removesUnreferencedFilesAndLeastRecentlyLaunchedVersions() throws IOException {
+        String shared = _server.library("com/example/shared.jar", "a library shared by both versions");
+        String old = _server.library("com/example/old.jar", "a library only used by 1.16.4");
+        String added = _server.library("com/example/added.jar", "a library only used by 1.16.5");
+        String index = _server.file("/indexes/1.16.json", "{\"objects\": {}}");
+
+        List<VersionManifest.MCVersionWrapper> versions = List.of(
+                _server.version("1.16.4", index, shared, old),
+                _server.version("1.16.5", index, shared, added));
+        assertTrue(InstallPlan.create(versions, _root, _scheduler, _server.getCache()).join().execute().join());
+
+        File orphan = new File(_root, "libraries/com/example/orphan/orphan.jar");
+        Files.createDirectories(orphan.getParentFile().toPath());
+        Files.writeString(orphan.toPath(), "a library no version uses");
+        LaunchPlan.markLaunched(_root, "1.16.5");
+
+        List<MCAssetPackage> installed = AssetCollector.getInstalled(versions, _root, _server.getCache()).join();
+        assertEquals(2, installed.size());
+        AssetCollector collector = new AssetCollector(_root, _scheduler);
+
+        AssetCollector.Report report = collector.collect(installed, true).join();
+        assertEquals(List.of(orphan), report.getFiles());
+        assertTrue(report.isDryRun());
+        assertTrue(orphan.isFile());
+
+        report = collector.collect(installed, false).join();
+        assertEquals(List.of(orphan), report.getFiles());
+        assertFalse(orphan.getParentFile().exists());
+
+        // Only the files of 1.16.5 fit the budget, so 1.16.4, which was never launched, is removed.
+        long budget = _server.getSize("/clients/1.16.5.jar") + _server.getSize("/indexes/1.16.json")
+                + _server.getSize("/libraries/com/example/shared.jar") + _server.getSize("/libraries/com/example/added.jar");
+        report = collector.collect(installed, budget, false).join();
+        assertEquals(List.of("1.16.4"), report.getEvictedVersions());
+        assertEquals(budget, report.getLiveByteCount());
+        assertFalse(new File(_root, "versions/1.16.4").exists());
+        assertFalse(new File(_root, "libraries/com/example/old.jar").exists());
+        assertTrue(new File(_root, "libraries/com/example/shared.jar").isFile());
+        assertTrue(new File(_root, "assets/indexes/1.16.json").isFile());
+        assertTrue(LaunchPlan.load(_root, "1.16.5").isPresent());
+    }
+
+    @Test
+    void versionDirectoriesWithoutAnAssetPackageAreKept() throws IOException {
+        String shared = _server.library("com/example/shared.jar", "a library used by 1.16.5");
+        String index = _server.file("/indexes/1.16.json", "{\"objects\": {}}");
+
+        List<VersionManifest.MCVersionWrapper> versions = List.of(_server.version("1.16.5", index, shared));
+        assertTrue(InstallPlan.create(versions, _root, _scheduler, _server.getCache()).join().execute().join());
+
+        // A modded version that is not in the manifest, of which the library only has a maven name.
+        File loader = new File(_root, "libraries/net/fabricmc/fabric-loader/0.14.0/fabric-loader-0.14.0.jar");
+        Files.createDirectories(loader.getParentFile().toPath());
+        Files.writeString(loader.toPath(), "a library only used by the modded version");
+        Files.createDirectories(_root.toPath().resolve("versions/fabric"));
+        Files.writeString(_root.toPath().resolve("versions/fabric/fabric.json"), "{\"id\": \"fabric\", \"inheritsFrom\": \"1.16.5\","
+                + "\"libraries\": [{\"name\": \"net.fabricmc:fabric-loader:0.14.0\"}]}");
+
+        List<MCAssetPackage> installed = AssetCollector.getInstalled(versions, _root, _server.getCache()).join();
+        AssetCollector collector = new AssetCollector(_root, _scheduler);
+
+        // Nothing is known about a version directory with only a jar, so nothing is removed.
+        Files.createDirectories(_root.toPath().resolve("versions/unknown"));
+        Files.writeString(_root.toPath().resolve("versions/unknown/unknown.jar"), "a client without version json");
+        CompletionException exception = assertThrows(CompletionException.class, () -> collector.collect(installed, false).join());
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertTrue(loader.isFile());
+
+        Files.delete(_root.toPath().resolve("versions/unknown/unknown.jar"));
+        // The modded version is based on 1.16.5, so 1.16.5 is not evicted to fit the budget either.
+        AssetCollector.Report report = collector.collect(installed, 0, false).join();
+        assertEquals(List.of(), report.getFiles());
+        assertEquals(List.of(), report.getEvictedVersions());
+        assertTrue(loader.isFile());
+        assertTrue(new File(_root, "libraries/com/example/shared.jar").isFile());
+    }
+}
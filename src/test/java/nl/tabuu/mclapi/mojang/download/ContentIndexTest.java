@@ -0,0 +1,48 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.IDownloadableAsset;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.util.FileUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentIndexTest {
+
+    @Test
+    void diffListsAddedAndRemovedHashes() {
+        // Two indexes of 40000 objects of which 30000 are shared, in random order and with duplicates.
+        List<IDownloadableAsset> source = new ArrayList<>(), target = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            if (i < 40000) source.add(asset(i));
+            if (i >= 10000) target.add(asset(i));
+        }
+        source.add(asset(0));
+        target.add(new MCAssetPackage.DownloadableGameAssetWrapper(sha1(49999).toUpperCase(Locale.ROOT), 1));
+        Collections.shuffle(source, new Random(1));
+        Collections.shuffle(target, new Random(2));
+
+        ContentIndex.Diff diff = ContentIndex.of(source).diff(ContentIndex.of(target));
+        assertEquals(10000, diff.getAdded().size());
+        assertEquals(10000, diff.getRemoved().size());
+        assertEquals(30000, diff.getUnchangedCount());
+        assertEquals(10000, diff.getAddedByteCount());
+
+        Set<String> added = new HashSet<>();
+        diff.getAdded().forEach(asset -> added.add(asset.getHash().toLowerCase(Locale.ROOT)));
+        assertTrue(added.contains(sha1(45000)));
+        assertFalse(added.contains(sha1(35000)));
+        assertTrue(ContentIndex.of(source).contains(sha1(5000).toUpperCase(Locale.ROOT)));
+    }
+
+    private static IDownloadableAsset asset(int index) {
+        return new MCAssetPackage.DownloadableGameAssetWrapper(sha1(index), 1);
+    }
+
+    private static String sha1(int index) {
+        return FileUtil.toHex(FileUtil.createSha1Digest().digest(Integer.toString(index).getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,64 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.LaunchPlan;
+import nl.tabuu.mclapi.mojang.VersionManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstallPlanTest {
+
+    @TempDir
+    Path _directory;
+
+    private LocalMojangServer _server;
+    private File _root;
+    private DownloadScheduler _scheduler;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        _server = new LocalMojangServer(_directory);
+        _root = _directory.resolve("minecraft").toFile();
+        _scheduler = _server.createScheduler(_root);
+    }
+
+    @AfterEach
+    void stopServer() {
+        _server.close();
+    }
+
+    @Test
+    void sharedContentIsDownloadedOnce() throws IOException {
+        String library = _server.library("com/example/shared.jar", "a library shared by all versions");
+        String index = _server.file("/indexes/1.16.json", "{\"objects\": {}}");
+
+        List<VersionManifest.MCVersionWrapper> versions = List.of(
+                _server.version("1.16.4", index, library),
+                _server.version("1.16.5", index, library));
+
+        InstallPlan plan = InstallPlan.create(versions, _root, _scheduler, _server.getCache()).join();
+        assertEquals(4, plan.getArtifactCount());
+        assertTrue(plan.execute().join());
+
+        assertEquals(1, _server.getRequestCount("/libraries/com/example/shared.jar"));
+        assertEquals(1, _server.getRequestCount("/indexes/1.16.json"));
+        assertEquals(1, _server.getRequestCount("/clients/1.16.4.jar"));
+        assertTrue(LaunchPlan.load(_root, "1.16.4").isPresent());
+        assertTrue(LaunchPlan.load(_root, "1.16.5").isPresent());
+        assertTrue(new File(_root, "assets/indexes/1.16.json").isFile());
+        assertFalse(new File(_root, "assets/indexes/1.16.5.json").exists());
+        assertEquals("1.16", LaunchPlan.load(_root, "1.16.5").get().getAssetIndex());
+
+        // Running the same plan again only verifies what is on disk.
+        assertTrue(InstallPlan.create(versions, _root, _scheduler, _server.getCache()).join().execute().join());
+        assertEquals(1, _server.getRequestCount("/libraries/com/example/shared.jar"));
+    }
+}
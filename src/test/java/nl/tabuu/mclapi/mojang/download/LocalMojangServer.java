@@ -0,0 +1,222 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import com.sun.net.httpserver.HttpServer;
+import nl.tabuu.mclapi.mojang.MetadataCache;
+import nl.tabuu.mclapi.mojang.VersionManifest;
+import nl.tabuu.mclapi.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves clients, libraries and asset indexes from memory on a local port, and writes the version json files that
+ * refer to them to an offline {@link MetadataCache}, so installs can be tested without the Mojang servers.
+ */
+class LocalMojangServer implements AutoCloseable {
+
+    private final Map<String, byte[]> _files;
+    private final Map<String, AtomicInteger> _requests;
+    private final ExecutorService _executor;
+    private final HttpServer _server;
+    private final Path _metadata;
+    private final MetadataCache _cache;
+    private volatile long _delay;
+    private volatile boolean _ranges;
+
+    /**
+     * Starts a server that keeps its metadata in the directory.
+     *
+     * @param directory The directory to keep the metadata in.
+     * @throws IOException If the server could not be started.
+     */
+    LocalMojangServer(Path directory) throws IOException {
+        _files = new ConcurrentHashMap<>();
+        _requests = new ConcurrentHashMap<>();
+        _metadata = Files.createDirectories(directory.resolve("metadata"));
+        _cache = new MetadataCache(_metadata.toFile());
+        _cache.setOffline(true);
+
+        _executor = Executors.newCachedThreadPool();
+        _server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        _server.setExecutor(_executor);
+        _server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            _requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+
+            try {
+                Thread.sleep(_delay);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] body = _files.get(path);
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (body != null && _ranges && range != null && range.startsWith("bytes=")) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                int start = Integer.parseInt(bounds[0]), end = bounds[1].isEmpty() ? body.length - 1 : Integer.parseInt(bounds[1]);
+                exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/%d", start, end, body.length));
+                exchange.sendResponseHeaders(206, end - start + 1);
+                try (OutputStream stream = exchange.getResponseBody()) {
+                    stream.write(body, start, end - start + 1);
+                }
+                return;
+            }
+
+            exchange.sendResponseHeaders(body == null ? 404 : 200, body == null ? -1 : body.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                if (body != null) stream.write(body);
+            }
+        });
+        _server.start();
+    }
+
+    /**
+     * Returns the offline cache the version json files are written to.
+     *
+     * @return The offline cache the version json files are written to.
+     */
+    MetadataCache getCache() {
+        return _cache;
+    }
+
+    /**
+     * Returns a scheduler with the asset store of the Minecraft directory.
+     *
+     * @param root The Minecraft directory.
+     * @return A scheduler with the asset store of the Minecraft directory.
+     */
+    DownloadScheduler createScheduler(File root) {
+        DownloadScheduler scheduler = new DownloadScheduler();
+        scheduler.setStore(AssetStore.open(root));
+        return scheduler;
+    }
+
+    /**
+     * Delays every response by the amount of milliseconds.
+     *
+     * @param delay The amount of milliseconds to delay every response by.
+     */
+    void setDelay(long delay) {
+        _delay = delay;
+    }
+
+    /**
+     * Sets whether range requests are answered with the requested range, or with the whole content.
+     *
+     * @param ranges True to answer range requests with the requested range.
+     */
+    void setRangeRequests(boolean ranges) {
+        _ranges = ranges;
+    }
+
+    /**
+     * Returns the amount of requests for the path.
+     *
+     * @param path The path that was requested.
+     * @return The amount of requests for the path.
+     */
+    int getRequestCount(String path) {
+        AtomicInteger requests = _requests.get(path);
+        return requests == null ? 0 : requests.get();
+    }
+
+    /**
+     * Returns the size of the content served at the path.
+     *
+     * @param path The path of the content.
+     * @return The size of the content served at the path.
+     */
+    long getSize(String path) {
+        return _files.get(path).length;
+    }
+
+    /**
+     * Serves the content at the path, and returns its url.
+     *
+     * @param path    The path to serve the content at.
+     * @param content The content to serve.
+     * @return The url of the content.
+     */
+    String serve(String path, byte[] content) {
+        _files.put(path, content);
+        return getUrl(path);
+    }
+
+    /**
+     * Serves the content at the path, and returns the download object of a version json for it.
+     *
+     * @param path    The path to serve the content at.
+     * @param content The content to serve.
+     * @return The download object of a version json for the content.
+     */
+    String file(String path, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return String.format("{\"sha1\": \"%s\", \"size\": %d, \"url\": \"%s\"}", sha1(bytes), bytes.length, serve(path, bytes));
+    }
+
+    /**
+     * Serves the content as library, and returns the library object of a version json for it.
+     *
+     * @param path    The path of the library in the libraries directory.
+     * @param content The content of the library.
+     * @return The library object of a version json for the library.
+     */
+    String library(String path, String content) {
+        String name = path.substring(path.lastIndexOf('/') + 1, path.lastIndexOf('.'));
+        return "{\"name\": \"com.example:" + name + ":1.0\", \"downloads\": {\"artifact\": "
+                + file("/libraries/" + path, content).replace("{", "{\"path\": \"" + path + "\", ") + "}}";
+    }
+
+    /**
+     * Serves a client for the version, and writes the version json to the cache.
+     *
+     * @param id        The id of the version.
+     * @param index     The download object of the asset index "1.16" of the version.
+     * @param libraries The library objects of the version.
+     * @return The version.
+     * @throws IOException If the version json could not be written.
+     */
+    VersionManifest.MCVersionWrapper version(String id, String index, String... libraries) throws IOException {
+        String client = file("/clients/" + id + ".jar", "the client of " + id);
+        String url = getUrl("/versions/" + id + ".json");
+        String json = "{\"id\": \"" + id + "\", \"type\": \"release\", \"mainClass\": \"net.minecraft.client.main.Main\","
+                + "\"downloads\": {\"client\": " + client + "},"
+                + "\"assetIndex\": " + index.replace("{", "{\"id\": \"1.16\", ") + ","
+                + "\"libraries\": [" + String.join(", ", libraries) + "],"
+                + "\"minecraftArguments\": \"--username ${auth_player_name}\"}";
+
+        // The cache is offline, so the version json is served from the file it would have been cached in.
+        Files.writeString(_metadata.resolve(sha1(url.getBytes(StandardCharsets.UTF_8)) + ".json"), json);
+        return new VersionManifest.MCVersionWrapper(id, "release", url);
+    }
+
+    /**
+     * Returns the url of the path on this server.
+     *
+     * @param path The path to get the url of.
+     * @return The url of the path on this server.
+     */
+    String getUrl(String path) {
+        return "http://127.0.0.1:" + _server.getAddress().getPort() + path;
+    }
+
+    @Override
+    public void close() {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    static String sha1(byte[] content) {
+        return FileUtil.toHex(FileUtil.createSha1Digest().digest(content));
+    }
+}
@@ -0,0 +1,89 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferEngineTest {
+
+    @TempDir
+    Path _directory;
+
+    private LocalMojangServer _server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        _server = new LocalMojangServer(_directory);
+    }
+
+    @AfterEach
+    void stopServer() {
+        _server.close();
+    }
+
+    @Test
+    void concurrentTransfersOfTheSameHashAreCoalesced() throws Exception {
+        byte[] content = new byte[1 << 16];
+        ThreadLocalRandom.current().nextBytes(content);
+        String url = _server.serve("/objects/large", content), hash = LocalMojangServer.sha1(content);
+        _server.setDelay(300);
+
+        TransferEngine engine = new TransferEngine(HttpClient.newHttpClient(), Duration.ofSeconds(10));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> transfers = executor.invokeAll(List.<Callable<Long>>of(
+                    () -> engine.transfer(url, _directory.resolve("a").toFile(), hash, content.length),
+                    () -> engine.transfer(url, _directory.resolve("a").toFile(), hash, content.length),
+                    () -> engine.transfer(url, _directory.resolve("b").toFile(), hash, content.length)));
+
+            for (Future<Long> transfer : transfers)
+                assertEquals(content.length, transfer.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, _server.getRequestCount("/objects/large"));
+        assertArrayEquals(content, Files.readAllBytes(_directory.resolve("a")));
+        assertArrayEquals(content, Files.readAllBytes(_directory.resolve("b")));
+    }
+
+    @Test
+    void largeTransfersAreSegmentedAndHashedOnce() throws Exception {
+        byte[] content = new byte[17 * 1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+        String url = _server.serve("/objects/segmented", content), hash = LocalMojangServer.sha1(content);
+        _server.setRangeRequests(true);
+
+        TransferEngine engine = new TransferEngine(HttpClient.newHttpClient(), Duration.ofSeconds(30));
+        assertEquals(content.length, engine.transfer(url, _directory.resolve("segmented").toFile(), hash, content.length));
+
+        assertEquals(4, _server.getRequestCount("/objects/segmented"));
+        assertArrayEquals(content, Files.readAllBytes(_directory.resolve("segmented")));
+        assertFalse(Files.exists(_directory.resolve("segmented.part")));
+    }
+
+    @Test
+    void largeTransfersFallBackToASingleRequestWithoutRangeSupport() throws Exception {
+        byte[] content = new byte[17 * 1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+        String url = _server.serve("/objects/whole", content), hash = LocalMojangServer.sha1(content);
+
+        // The segments are answered with the whole content, so they are rejected and the digest starts over.
+        TransferEngine engine = new TransferEngine(HttpClient.newHttpClient(), Duration.ofSeconds(30));
+        assertEquals(content.length, engine.transfer(url, _directory.resolve("whole").toFile(), hash, content.length));
+
+        assertEquals(5, _server.getRequestCount("/objects/whole"));
+        assertArrayEquals(content, Files.readAllBytes(_directory.resolve("whole")));
+    }
+}
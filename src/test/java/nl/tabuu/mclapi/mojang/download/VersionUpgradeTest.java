@@ -0,0 +1,67 @@
+package nl.tabuu.mclapi.mojang.download;
+
+import nl.tabuu.mclapi.mojang.LaunchPlan;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.mojang.VersionManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionUpgradeTest {
+
+    @TempDir
+    Path _directory;
+
+    private LocalMojangServer _server;
+    private File _root;
+    private DownloadScheduler _scheduler;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        _server = new LocalMojangServer(_directory);
+        _root = _directory.resolve("minecraft").toFile();
+        _scheduler = _server.createScheduler(_root);
+    }
+
+    @AfterEach
+    void stopServer() {
+        _server.close();
+    }
+
+    @Test
+    void upgradeOnlyFetchesTheDelta() throws IOException {
+        String shared = _server.library("com/example/shared.jar", "a library shared by both versions");
+        String added = _server.library("com/example/added.jar", "a library added in 1.16.5");
+        String index = _server.file("/indexes/1.16.json", "{\"objects\": {}}");
+
+        VersionManifest.MCVersionWrapper from = _server.version("1.16.4", index, shared);
+        VersionManifest.MCVersionWrapper to = _server.version("1.16.5", index, shared, added);
+        assertTrue(InstallPlan.create(List.of(from), _root, _scheduler, _server.getCache()).join().execute().join());
+
+        VersionUpgrade upgrade = VersionUpgrade.plan(MCAssetPackage.fromVersion(from, _server.getCache()).join(),
+                MCAssetPackage.fromVersion(to, _server.getCache()).join(), _root, _scheduler).join();
+
+        // Only the client and the added library differ, the size of both is known before anything is fetched.
+        assertEquals(2, upgrade.getDiff().getAdded().size());
+        assertEquals(1, upgrade.getDiff().getRemoved().size());
+        assertEquals(2, upgrade.getDiff().getUnchangedCount());
+        assertEquals(_server.getSize("/clients/1.16.5.jar") + _server.getSize("/libraries/com/example/added.jar"), upgrade.getDeltaByteCount());
+        assertEquals(0, _server.getRequestCount("/clients/1.16.5.jar"));
+
+        assertTrue(upgrade.execute().join());
+        assertEquals(1, _server.getRequestCount("/libraries/com/example/shared.jar"));
+        assertEquals(1, _server.getRequestCount("/libraries/com/example/added.jar"));
+        assertEquals(1, _server.getRequestCount("/clients/1.16.5.jar"));
+        assertEquals(1, _server.getRequestCount("/indexes/1.16.json"));
+        assertTrue(LaunchPlan.load(_root, "1.16.5").isPresent());
+        assertTrue(new File(_root, "libraries/com/example/added.jar").isFile());
+    }
+}
@@ -0,0 +1,192 @@
+package nl.tabuu.mclapi.mojang.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import nl.tabuu.mclapi.mojang.MCAssetPackage;
+import nl.tabuu.mclapi.mojang.MetadataCache;
+import nl.tabuu.mclapi.mojang.VersionManifest;
+import nl.tabuu.mclapi.util.FileUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MojangJsonTest {
+
+    private static final String VERSION_URL = "https://piston-meta.mojang.com/v1/packages/0000000000000000000000000000000000000000/1.16.5.json";
+
+    @Test
+    void versionJsonIsReadIntoTypedObjects() throws IOException {
+        VersionJson version = read("1.16.5.json", VersionJson.class);
+
+        assertEquals("1.16.5", version.getId());
+        assertEquals("release", version.getType());
+        assertEquals("net.minecraft.client.main.Main", version.getMainClass());
+        assertEquals("1.16", version.getAssetIndex().getId());
+        assertEquals(330604194L, version.getAssetIndex().getTotalSize());
+        assertEquals(17547153, version.getClient().getSize());
+        assertNull(version.getMinecraftArguments());
+
+        VersionJson.Library lwjgl = version.getLibraries().stream()
+                .filter(library -> library.getClassifiers().containsKey("natives-linux"))
+                .findFirst().orElseThrow();
+        assertEquals("natives-linux", lwjgl.getNatives().get("linux"));
+        assertEquals(2, lwjgl.getRules().size());
+        assertFalse(lwjgl.getRules().get(1).isAllow());
+        assertEquals("osx", lwjgl.getRules().get(1).getOsName());
+
+        VersionJson.Argument resolution = version.getGameArguments().get(version.getGameArguments().size() - 1);
+        assertEquals(List.of("--width", "${resolution_width}", "--height", "${resolution_height}"), resolution.getValues());
+        assertEquals(Boolean.TRUE, resolution.getRules().get(0).getFeatures().get("has_custom_resolution"));
+        assertTrue(version.getJvmArguments().stream().anyMatch(argument -> "^10\\.".equals(argument.getRules().isEmpty() ? null : argument.getRules().get(0).getOsVersion())));
+    }
+
+    @Test
+    void legacyVersionJsonIsRead() throws IOException {
+        VersionJson version = read("1.12.2.json", VersionJson.class);
+
+        assertEquals("1.12", version.getAssets());
+        assertNull(version.getGameArguments());
+        assertNull(version.getJvmArguments());
+        assertTrue(version.getMinecraftArguments().startsWith("--username ${auth_player_name}"));
+        assertEquals(List.of("META-INF/"), version.getLibraries().get(version.getLibraries().size() - 1).getExtractExcludes());
+    }
+
+    @Test
+    void assetIndexIsRead() throws IOException {
+        AssetIndex index = read("1.16.index.json", AssetIndex.class);
+
+        assertEquals(1000, index.getObjects().size());
+        assertFalse(index.isVirtual());
+        AssetIndex.Asset first = index.getObjects().get(0);
+        assertEquals("minecraft/sounds/0/sound0.ogg", first.getName());
+        assertEquals(40, first.getHash().length());
+    }
+
+    @Test
+    void metadataCacheServesTypedDocuments(@TempDir Path directory) throws Exception {
+        String manifestUrl = "https://piston-meta.mojang.com/mc/game/version_manifest.json";
+        String manifest = "{\"latest\": {\"release\": \"1.16.5\"}, \"versions\": [{\"id\": \"1.16.5\", \"type\": \"release\", \"url\": \"" + VERSION_URL + "\"}]}";
+        Files.writeString(directory.resolve(getKey(manifestUrl) + ".json"), manifest);
+        Files.copy(getResource("1.16.5.json"), directory.resolve(getKey(VERSION_URL) + ".json"));
+
+        MetadataCache cache = new MetadataCache(directory.toFile());
+        cache.setOffline(true);
+
+        assertEquals("1.16.5", cache.get(manifestUrl, VersionManifestJson.class).join().getLatestRelease());
+        assertSame(cache.get(VERSION_URL, VersionJson.class).join(), cache.get(VERSION_URL, VersionJson.class).join());
+        assertEquals("1.16.5", cache.get(VERSION_URL).join().get("id").getAsString());
+
+        VersionManifest versions = VersionManifest.get(manifestUrl, cache).join();
+        MCAssetPackage assetPackage = MCAssetPackage.fromVersion(versions.getVersions().get("1.16.5"), cache).join();
+        assertEquals("1.16", assetPackage.getAssetIndexName());
+        assertEquals(new File("root", "assets/indexes/1.16.json"), assetPackage.getAssetIndex().getLocation(new File("root")));
+        assertTrue(assetPackage.getLibraries().length > 0);
+        assertTrue(assetPackage.getGameArguments().contains("--accessToken"));
+        assertFalse(assetPackage.getGameArguments().contains("--demo"));
+    }
+
+    /**
+     * Compares the typed, single pass read to the tree walk it replaced. Allocation is measured exactly per thread,
+     * timings are left out since they depend on the machine. Excluded from the normal test run.
+     */
+    @Test
+    @Tag("benchmark")
+    void typedReadAllocatesLessThanTreeWalk() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        for (String file : new String[]{"1.16.5.json", "1.12.2.json"}) {
+            byte[] json = getResource(file).readAllBytes();
+            Function<Reader, Object> typed = reader -> MojangJson.getGson().fromJson(reader, VersionJson.class);
+            Function<Reader, Object> tree = MojangJsonTest::walkTree;
+
+            // The paths are measured in turns and the best round counts, so the first rounds warm up the compiled code of both.
+            long[] typedResult = {Long.MAX_VALUE, Long.MAX_VALUE}, treeResult = {Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int round = 0; round < 5; round++) {
+                min(typedResult, measure(threads, json, typed, 500));
+                min(treeResult, measure(threads, json, tree, 500));
+            }
+
+            assertTrue(typedResult[0] < treeResult[0], file + ": typed read allocated " + typedResult[0] + " bytes, tree walk " + treeResult[0] + " bytes");
+        }
+    }
+
+    private static void min(long[] best, long[] result) {
+        for (int i = 0; i < best.length; i++)
+            best[i] = Math.min(best[i], result[i]);
+    }
+
+    /**
+     * Returns the allocated bytes and nanoseconds per read.
+     */
+    private static long[] measure(com.sun.management.ThreadMXBean threads, byte[] json, Function<Reader, Object> read, int rounds) {
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread), start = System.nanoTime();
+
+        int hash = 0;
+        for (int i = 0; i < rounds; i++)
+            hash += read.apply(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)).hashCode();
+
+        long time = System.nanoTime() - start, allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertNotEquals(42, hash);
+        return new long[]{allocated / rounds, time / rounds};
+    }
+
+    /**
+     * The way the version json was read before: a json tree, walked by hand, with a new {@link Gson} per document.
+     */
+    private static Object walkTree(Reader reader) {
+        JsonObject manifest = JsonParser.parseReader(reader).getAsJsonObject();
+        Gson gson = new Gson();
+
+        List<Object> result = new ArrayList<>();
+        result.add(gson.fromJson(manifest.getAsJsonObject("downloads").get("client"), TreeDownload.class));
+        result.add(gson.fromJson(manifest.get("assetIndex"), TreeDownload.class));
+        for (JsonElement library : manifest.getAsJsonArray("libraries")) {
+            JsonObject downloads = library.getAsJsonObject().getAsJsonObject("downloads");
+            if (downloads.has("artifact"))
+                result.add(gson.fromJson(downloads.get("artifact"), TreeDownload.class));
+            if (downloads.has("classifiers") && downloads.getAsJsonObject("classifiers").has("natives-linux"))
+                result.add(gson.fromJson(downloads.getAsJsonObject("classifiers").get("natives-linux"), TreeDownload.class));
+        }
+
+        return result;
+    }
+
+    private static <T> T read(String name, Class<T> type) throws IOException {
+        try (Reader reader = new InputStreamReader(getResource(name), StandardCharsets.UTF_8)) {
+            return MojangJson.getGson().fromJson(reader, type);
+        }
+    }
+
+    private static InputStream getResource(String name) {
+        InputStream stream = MojangJsonTest.class.getResourceAsStream(name);
+        assertNotNull(stream, name);
+        return stream;
+    }
+
+    private static String getKey(String url) {
+        return FileUtil.toHex(FileUtil.createSha1Digest().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class TreeDownload {
+        private String path, sha1, url;
+        private int size;
+    }
+}
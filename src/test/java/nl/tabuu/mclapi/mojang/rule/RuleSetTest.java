@@ -0,0 +1,93 @@
+package nl.tabuu.mclapi.mojang.rule;
+
+import nl.tabuu.mclapi.mojang.json.MojangJson;
+import nl.tabuu.mclapi.mojang.json.VersionJson;
+import nl.tabuu.mclapi.util.os.OperatingSystem;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+
+    private static final RuleContext
+            LINUX = context("linux", "5.15.0", "amd64"),
+            OSX = context("osx", "10.15.7", "x86_64"),
+            WINDOWS_10 = context("windows", "10.0", "x86"),
+            WINDOWS_7 = context("windows", "6.1", "amd64");
+
+    @Test
+    void librariesAreFilteredByOperatingSystem() throws IOException {
+        VersionJson version = read();
+
+        assertEquals(Set.of("3.2.2"), getLwjglVersions(version, LINUX));
+        assertEquals(Set.of("3.2.2"), getLwjglVersions(version, WINDOWS_10));
+        assertEquals(Set.of("3.2.1"), getLwjglVersions(version, OSX));
+    }
+
+    @Test
+    void argumentsAreFilteredByOperatingSystemVersionArchitectureAndFeatures() throws IOException {
+        VersionJson version = read();
+
+        assertTrue(getArguments(version.getJvmArguments(), OSX).contains("-XstartOnFirstThread"));
+        assertFalse(getArguments(version.getJvmArguments(), LINUX).contains("-XstartOnFirstThread"));
+
+        assertTrue(getArguments(version.getJvmArguments(), WINDOWS_10).contains("-Dos.name=Windows 10"));
+        assertFalse(getArguments(version.getJvmArguments(), WINDOWS_7).contains("-Dos.name=Windows 10"));
+
+        assertTrue(getArguments(version.getJvmArguments(), WINDOWS_10).contains("-Xss1M"));
+        assertFalse(getArguments(version.getJvmArguments(), WINDOWS_7).contains("-Xss1M"));
+
+        assertFalse(getArguments(version.getGameArguments(), LINUX).contains("--width"));
+        RuleContext resolution = new RuleContext(LINUX.getOperatingSystem(), Set.of("has_custom_resolution"));
+        assertTrue(getArguments(version.getGameArguments(), resolution).contains("--width"));
+    }
+
+    @Test
+    void equalRulesShareOneCompiledRuleSet() throws IOException {
+        VersionJson version = read();
+
+        List<RuleSet> compiled = version.getLibraries().stream()
+                .filter(library -> library.getName().startsWith("org.lwjgl:") && library.getName().endsWith(":3.2.2"))
+                .map(library -> RuleSet.compile(library.getRules()))
+                .collect(Collectors.toList());
+
+        assertTrue(compiled.size() > 1);
+        assertTrue(compiled.stream().allMatch(ruleSet -> ruleSet == compiled.get(0)));
+        assertSame(RuleSet.compile(List.of()), RuleSet.compile(List.of()));
+        assertTrue(RuleSet.compile(List.of()).conforms(OSX));
+    }
+
+    private static Set<String> getLwjglVersions(VersionJson version, RuleContext context) {
+        return version.getLibraries().stream()
+                .filter(library -> library.getName().startsWith("org.lwjgl:"))
+                .filter(library -> RuleSet.compile(library.getRules()).conforms(context))
+                .map(library -> library.getName().substring(library.getName().lastIndexOf(':') + 1))
+                .collect(Collectors.toSet());
+    }
+
+    private static List<String> getArguments(List<VersionJson.Argument> arguments, RuleContext context) {
+        return arguments.stream()
+                .filter(argument -> ConformedVariable.of(argument, argument.getRules()).conforms(context))
+                .flatMap(argument -> argument.getValues().stream())
+                .collect(Collectors.toList());
+    }
+
+    private static RuleContext context(String id, String version, String architecture) {
+        return new RuleContext(new OperatingSystem(id, version, architecture, ":", id, new File(".minecraft")));
+    }
+
+    private static VersionJson read() throws IOException {
+        try (Reader reader = new InputStreamReader(RuleSetTest.class.getResourceAsStream("/nl/tabuu/mclapi/mojang/json/1.16.5.json"), StandardCharsets.UTF_8)) {
+            return MojangJson.getGson().fromJson(reader, VersionJson.class);
+        }
+    }
+}